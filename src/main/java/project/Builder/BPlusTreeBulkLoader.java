@@ -0,0 +1,383 @@
+package project.Builder;
+
+import project.Common.Config;
+import project.Common.PostingsFormat;
+import project.Common.TreePageFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// בניית קובץ העץ בזרימה מרשומות ממוינות (bulk load):
+// כל רשומה מקודדת ישירות לאזור הרשומות של העמוד הנוכחי, עם מעקב רץ אחרי גודל העמוד,
+// ועמוד מלא מורכב במאגר אחד שנעשה בו שימוש חוזר ונכתב דרך FileChannel.
+// העלים נכתבים תוך כדי המיזוג, והרמות הפנימיות נבנות בסוף מרשימת העלים
+class BPlusTreeBulkLoader implements AutoCloseable {
+    private static final int TREE_HEADER_SIZE = 32;
+    private static final byte PAGE_TYPE_INTERNAL = 1;
+    private static final byte PAGE_TYPE_LEAF = 2;
+    // מונח ארוך ביותר (255 תווים, ראה SPIMIInvertedIndex.addToTempIndex) בקידוד writeUTF - עד 3 בתים לתו
+    private static final int MAX_KEY_LENGTH = 255 * 3;
+    // תקורת רשומת עלה מקסימלית מלבד המפתח: FRONT_CODED - vlong קידומת משותפת (0 ב-restart),
+    // vlong אורך סיומת, vint numDocs ו-vlong offset; אחרת אורך (short), numDocs (int) ו-offset (long)
+    private static final int MAX_FRONT_CODED_OVERHEAD = 1 + 2 + 5 + 9;
+    private static final int MAX_FIXED_OVERHEAD = 2 + 4 + 8;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final short pageFormat;
+    private final boolean slotted;
+    private final boolean frontCoded;
+    private final int restartInterval;
+
+    // העמוד המורכב לכתיבה, ואזור הרשומות של העמוד הנוכחי (לפני ה-slots)
+    private final byte[] pageBytes;
+    private final ByteBuffer pageBuffer;
+    private final byte[] entries;
+    private int entriesLength;
+    private int[] slots;
+    private int slotCount;
+    private int entryCount;
+
+    // המפתח הנוכחי והקודם בקידוד writeUTF (להשוואת קידומת ב-FRONT_CODED)
+    private byte[] key = new byte[256];
+    private int keyLength;
+    private byte[] previousKey = new byte[256];
+    private int previousKeyLength;
+    private long previousOffset;
+    private String previousTerm;
+
+    // מצב הבנייה
+    private final List<PageInfo> leafInfos = new ArrayList<>();
+    private String lowKeyInPage;
+    private int nextPageId = 0;
+    private int treeHeight = 1;
+
+    BPlusTreeBulkLoader(String treeFile, short postingsVersion) throws IOException {
+        Config config = Config.getInstance();
+        this.pageSize = config.getPageSize();
+        this.pageFormat = config.getTreePageFormat();
+        this.slotted = pageFormat >= TreePageFormat.SLOTTED;
+        this.frontCoded = pageFormat >= TreePageFormat.FRONT_CODED;
+        this.restartInterval = config.getTreeRestartInterval();
+
+        // ה-offsets של הסלוטים ומספר הרשומות נשמרים כ-unsigned short
+        if (pageFormat != TreePageFormat.LEGACY && pageSize > 0xFFFF) {
+            throw new IOException("page.size=" + pageSize + " is too large for tree page format "
+                    + pageFormat + " (max " + 0xFFFF + ")");
+        }
+        // כל עמוד חייב להכיל לפחות רשומה אחת עם המפתח הארוך ביותר, אחרת מונח ארוך לא ייכנס לשום עמוד
+        // ורמה פנימית לא תתכנס לשורש
+        int minPageSize = TreePageFormat.PAGE_HEADER_SIZE + (slotted ? TreePageFormat.SLOT_SIZE : 0)
+                + MAX_KEY_LENGTH + (frontCoded ? MAX_FRONT_CODED_OVERHEAD : MAX_FIXED_OVERHEAD);
+        if (pageSize < minPageSize) {
+            throw new IOException("page.size=" + pageSize + " is too small for tree page format "
+                    + pageFormat + " (min " + minPageSize + ")");
+        }
+
+        this.pageBytes = new byte[pageSize];
+        this.pageBuffer = ByteBuffer.wrap(pageBytes);
+        this.entries = new byte[pageSize];
+        this.slots = new int[64];
+
+        this.channel = FileChannel.open(Path.of(treeFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeTemporaryTreeHeader(postingsVersion);
+    }
+
+    // הוספת רשומת עלה - המונחים חייבים להגיע בסדר עולה
+    void addLeafEntry(String term, int numDocs, long postingsOffset) throws IOException {
+        encodeKey(term);
+
+        int entrySize = leafEntrySize(numDocs, postingsOffset);
+        if (!fits(entrySize, needsSlot()) && entryCount > 0) {
+            writeLeafPage(nextPageId + 1);
+
+            // המפתח של העלה החדש ברמות הפנימיות - המפריד הקצר ביותר מהעלה הקודם
+            lowKeyInPage = frontCoded ? shortestSeparator(previousTerm, term) : term;
+            entrySize = leafEntrySize(numDocs, postingsOffset);
+        }
+        // גם בעמוד ריק - רשומה שלא נכנסת הייתה גולשת מאזור הרשומות
+        if (!fits(entrySize, needsSlot())) {
+            throw new IOException("Term does not fit in a tree page (page.size=" + pageSize + "): " + term);
+        }
+        if (lowKeyInPage == null) {
+            lowKeyInPage = term;
+        }
+
+        if (needsSlot()) {
+            addSlot();
+        }
+        if (frontCoded) {
+            int shared = sharedPrefix();
+            putVLong(shared);
+            putVLong(keyLength - shared);
+            System.arraycopy(key, shared, entries, entriesLength, keyLength - shared);
+            entriesLength += keyLength - shared;
+            putVLong(numDocs);
+            putVLong(isRestart() ? postingsOffset : postingsOffset - previousOffset);
+        } else {
+            putShort(keyLength);
+            System.arraycopy(key, 0, entries, entriesLength, keyLength);
+            entriesLength += keyLength;
+            putInt(numDocs);
+            putLong(postingsOffset);
+        }
+        entryCount++;
+
+        byte[] swap = previousKey;
+        previousKey = key;
+        previousKeyLength = keyLength;
+        key = swap;
+        previousOffset = postingsOffset;
+        previousTerm = term;
+    }
+
+    // כתיבת העלה האחרון, בניית הרמות הפנימיות ועדכון ה-Header
+    void finish() throws IOException {
+        if (entryCount > 0 || leafInfos.isEmpty()) {
+            if (lowKeyInPage == null) {
+                lowKeyInPage = "";
+            }
+            writeLeafPage(-1);
+        }
+
+        List<PageInfo> currentLevel = leafInfos;
+        while (currentLevel.size() > 1) {
+            currentLevel = writeInternalLevel(currentLevel);
+            treeHeight++;
+        }
+        int rootPageId = currentLevel.get(0).pageId;
+
+        updateTreeHeader(rootPageId, nextPageId, treeHeight);
+    }
+
+    // המפריד הקצר ביותר S כך ש-left < S <= right: הקידומת של right עד התו הראשון שבו הם נבדלים.
+    // כל המפתחות בתת-העץ הימני גדולים או שווים ל-S וכל המפתחות משמאל קטנים ממנו
+    static String shortestSeparator(String left, String right) {
+        int max = Math.min(left.length(), right.length());
+        int shared = 0;
+        while (shared < max && left.charAt(shared) == right.charAt(shared)) {
+            shared++;
+        }
+        return right.substring(0, Math.min(shared + 1, right.length()));
+    }
+
+    // ========== עמודי עלה ==========
+
+    private int leafEntrySize(int numDocs, long postingsOffset) {
+        if (frontCoded) {
+            int shared = sharedPrefix();
+            long offsetValue = isRestart() ? postingsOffset : postingsOffset - previousOffset;
+            return PostingsFormat.vLongSize(shared) + PostingsFormat.vLongSize(keyLength - shared) + (keyLength - shared)
+                    + PostingsFormat.vLongSize(numDocs) + PostingsFormat.vLongSize(offsetValue);
+        }
+        return 2 + keyLength + 4 + 8;
+    }
+
+    private boolean isRestart() {
+        return entryCount % restartInterval == 0;
+    }
+
+    // ב-SLOTTED לכל רשומה slot, ב-FRONT_CODED רק לנקודות restart
+    private boolean needsSlot() {
+        return slotted && (!frontCoded || isRestart());
+    }
+
+    private int sharedPrefix() {
+        if (isRestart()) {
+            return 0;
+        }
+        int max = Math.min(previousKeyLength, keyLength);
+        int shared = 0;
+        while (shared < max && previousKey[shared] == key[shared]) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private void writeLeafPage(int nextLeafPageId) throws IOException {
+        leafInfos.add(new PageInfo(nextPageId, lowKeyInPage));
+        writePage(PAGE_TYPE_LEAF, nextLeafPageId);
+        lowKeyInPage = null;
+    }
+
+    // ========== עמודים פנימיים ==========
+
+    private List<PageInfo> writeInternalLevel(List<PageInfo> children) throws IOException {
+        List<PageInfo> parentLevel = new ArrayList<>();
+
+        // הילד הראשון בכל עמוד נכנס כ-firstPointer, ללא מפתח מפריד
+        int firstPointer = children.get(0).pageId;
+        String lowKey = children.get(0).lowKey;
+
+        for (int i = 1; i < children.size(); i++) {
+            PageInfo child = children.get(i);
+            encodeKey(child.lowKey);
+
+            int entrySize = 2 + keyLength + 4;
+            if (!fits(entrySize, slotted)) {
+                // מפריד שלא נכנס גם לעמוד ריק - כל ילד היה מקבל עמוד משלו והרמות לא היו מתכנסות
+                if (entryCount == 0) {
+                    throw new IOException("Separator does not fit in a tree page (page.size=" + pageSize + "): "
+                            + child.lowKey);
+                }
+                parentLevel.add(new PageInfo(nextPageId, lowKey));
+                writePage(PAGE_TYPE_INTERNAL, firstPointer);
+
+                firstPointer = child.pageId;
+                lowKey = child.lowKey;
+                continue;
+            }
+
+            if (slotted) {
+                addSlot();
+            }
+            putShort(keyLength);
+            System.arraycopy(key, 0, entries, entriesLength, keyLength);
+            entriesLength += keyLength;
+            putInt(child.pageId);
+            entryCount++;
+        }
+
+        parentLevel.add(new PageInfo(nextPageId, lowKey));
+        writePage(PAGE_TYPE_INTERNAL, firstPointer);
+        return parentLevel;
+    }
+
+    // ========== הרכבת עמוד וכתיבה ==========
+
+    private boolean fits(int entrySize, boolean withSlot) {
+        int slotSize = withSlot ? TreePageFormat.SLOT_SIZE : 0;
+        return TreePageFormat.PAGE_HEADER_SIZE + slotCount * TreePageFormat.SLOT_SIZE
+                + entriesLength + entrySize + slotSize <= pageSize;
+    }
+
+    private void addSlot() {
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+        }
+        slots[slotCount++] = entriesLength;
+    }
+
+    // כותרת: type, reserved, count ו-nextPageId (עלה) או firstPointer (פנימי), אחריה ה-slots והרשומות
+    private void writePage(byte pageType, int headerPointer) throws IOException {
+        int slotsEnd = TreePageFormat.PAGE_HEADER_SIZE + slotCount * TreePageFormat.SLOT_SIZE;
+
+        pageBuffer.clear();
+        pageBuffer.put(pageType);
+        pageBuffer.put((byte) 0);
+        pageBuffer.putShort((short) entryCount);
+        pageBuffer.putInt(headerPointer);
+        for (int i = 0; i < slotCount; i++) {
+            pageBuffer.putShort((short) (slotsEnd + slots[i]));
+        }
+        pageBuffer.put(entries, 0, entriesLength);
+        Arrays.fill(pageBytes, pageBuffer.position(), pageSize, (byte) 0);
+
+        pageBuffer.clear();
+        while (pageBuffer.hasRemaining()) {
+            channel.write(pageBuffer);
+        }
+
+        nextPageId++;
+        entriesLength = 0;
+        slotCount = 0;
+        entryCount = 0;
+    }
+
+    private void writeTemporaryTreeHeader(short postingsVersion) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TREE_HEADER_SIZE);
+
+        // Magic number: BPT1 (4 bytes)
+        header.put((byte) 'B').put((byte) 'P').put((byte) 'T').put((byte) '1');
+
+        // Version: פורמט קובץ ה-Postings (2 bytes)
+        header.putShort(postingsVersion);
+
+        // Page size (4 bytes)
+        header.putInt(pageSize);
+
+        // Root page ID, Total pages, Tree height: placeholders (4 + 4 + 2 bytes)
+        header.putInt(-1);
+        header.putInt(-1);
+        header.putShort((short) -1);
+
+        // Page format (2 bytes) - LEGACY נכתב כאפס, כמו הריפוד בקבצים ישנים
+        header.putShort(pageFormat);
+
+        // Restart interval של עלי FRONT_CODED (2 bytes); השאר ריפוד עד 32 bytes
+        header.putShort((short) (frontCoded ? restartInterval : 0));
+
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    // עדכון השדות שבכותרת אחרי שכל העמודים נכתבו
+    private void updateTreeHeader(int rootPageId, int totalPages, int height) throws IOException {
+        // Magic (4) + Version (2) + PageSize (4) = 10 bytes
+        ByteBuffer fields = ByteBuffer.allocate(4 + 4 + 2);
+        fields.putInt(rootPageId);
+        fields.putInt(totalPages);
+        fields.putShort((short) height);
+        fields.flip();
+
+        long position = 10;
+        while (fields.hasRemaining()) {
+            position += channel.write(fields, position);
+        }
+
+        System.out.println("Header עודכן: Root=" + rootPageId + ", Pages=" + totalPages + ", Height=" + height);
+    }
+
+    // ========== קידוד ==========
+
+    private void encodeKey(String term) {
+        int maxLength = term.length() * 3;
+        if (key.length < maxLength) {
+            key = new byte[Math.max(maxLength, key.length * 2)];
+        }
+        keyLength = UtfEncoder.encode(term, key, 0);
+    }
+
+    private void putShort(int value) {
+        entries[entriesLength++] = (byte) (value >>> 8);
+        entries[entriesLength++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        entries[entriesLength++] = (byte) (value >>> 24);
+        entries[entriesLength++] = (byte) (value >>> 16);
+        entries[entriesLength++] = (byte) (value >>> 8);
+        entries[entriesLength++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putVLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            entries[entriesLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        entries[entriesLength++] = (byte) value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // עמוד שנכתב והמפתח התחתון שלו (משמש כמפריד ברמה שמעליו)
+    private record PageInfo(int pageId, String lowKey) {
+    }
+}
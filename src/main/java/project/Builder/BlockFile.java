@@ -0,0 +1,320 @@
+package project.Builder;
+
+import project.Common.PostingsFormat;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// פורמט קובץ בלוק זמני של SPIMI:
+//   Header: magic "SPB1" (int), סוג דחיסה (byte), מספר המונחים בבלוק (int)
+//   ואחריו מסגרות של עד SAMPLE_INTERVAL רשומות: [vint אורך גולמי][vint אורך שמור][בתים]
+//   (אורך שמור קטן מהגולמי = מסגרת דחוסה ב-Deflater)
+//   רשומה: [vint אורך מונח][מונח UTF-8][vint numDocs][vint אורך postings][postings בפורמט הסופי]
+// כל מסגרת מתחילה בנקודת דגימה של האינדקס הדליל, כך שאפשר לקפוץ אליה ולפענח ממנה.
+// סוף הבלוק נקבע לפי מספר המונחים שב-Header ולא לפי available()
+final class BlockFile {
+    static final int MAGIC = 0x53504231;
+    static final int HEADER_SIZE = 9;
+    private static final int TERM_COUNT_OFFSET = 5;
+    static final byte UNCOMPRESSED = 0;
+    static final byte DEFLATE = 1;
+
+    private BlockFile() {
+    }
+
+    // ByteArrayOutputStream עם גישה למערך הפנימי - בלי העתקה בכל כתיבה
+    static class Buffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final BlockSparseIndex sparseIndex;
+        private final Deflater deflater;
+        private final Buffer frame = new Buffer();
+        private final DataOutputStream frameOut = new DataOutputStream(frame);
+        private byte[] compressed = new byte[0];
+        private final File file;
+        private int frameTerms;
+        private int termCount;
+        private long offset;
+
+        // מספר המונחים ב-Header נכתב בסגירה
+        Writer(File file, int bufferSize, boolean compress, BlockSparseIndex sparseIndex) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize));
+            this.sparseIndex = sparseIndex;
+            this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(compress ? DEFLATE : UNCOMPRESSED);
+            this.out.writeInt(0);
+            this.offset = HEADER_SIZE;
+        }
+
+        // הוספת מונח (בסדר עולה) עם ה-postings שלו כבר מקודדים
+        void add(String term, int numDocs, byte[] postings, int from, int length) throws IOException {
+            if (frameTerms == 0) {
+                sparseIndex.add(term, offset);
+            }
+
+            byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+            PostingsFormat.writeVInt(frameOut, termBytes.length);
+            frameOut.write(termBytes);
+            PostingsFormat.writeVInt(frameOut, numDocs);
+            PostingsFormat.writeVInt(frameOut, length);
+            frameOut.write(postings, from, length);
+            termCount++;
+
+            if (++frameTerms == BlockSparseIndex.SAMPLE_INTERVAL) {
+                flushFrame();
+            }
+        }
+
+        private void flushFrame() throws IOException {
+            if (frameTerms == 0) {
+                return;
+            }
+
+            int rawLength = frame.size();
+            byte[] data = frame.array();
+            int storedLength = rawLength;
+
+            if (deflater != null) {
+                deflater.reset();
+                deflater.setInput(data, 0, rawLength);
+                deflater.finish();
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    if (compressedLength == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, Math.max(1024, compressed.length * 2));
+                    }
+                    compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+                }
+                // מסגרת שלא מתכווצת נשמרת כמו שהיא
+                if (compressedLength < rawLength) {
+                    data = compressed;
+                    storedLength = compressedLength;
+                }
+            }
+
+            offset += PostingsFormat.writeVInt(out, rawLength);
+            offset += PostingsFormat.writeVInt(out, storedLength);
+            out.write(data, 0, storedLength);
+            offset += storedLength;
+
+            frame.reset();
+            frameTerms = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushFrame();
+                sparseIndex.setLength(offset);
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+                out.close();
+            }
+
+            try (RandomAccessFile header = new RandomAccessFile(file, "rw")) {
+                header.seek(TERM_COUNT_OFFSET);
+                header.writeInt(termCount);
+            }
+        }
+    }
+
+    // קורא קובץ בלוק מסגרת אחר מסגרת. עם readAhead המסגרת הבאה נקראת (ומפוענחת) ברקע
+    // בזמן שהמיזוג עובד על הנוכחית - כשהבלוקים מפוזרים בין כמה דיסקים, כולם נקראים במקביל
+    static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final Executor readAhead;
+        private Inflater inflater;
+        private int remainingTerms;
+        // מונחים במסגרות שעוד לא נטענו (או שנטענות ברקע)
+        private int unloadedTerms;
+
+        private Frame frame = new Frame();
+        private Frame spare = new Frame();
+        private CompletableFuture<Frame> pendingFrame;
+        private byte[] stored = new byte[0];
+        private int framePosition;
+
+        // הרשומה הנוכחית - ה-postings נשארים במאגר המסגרת עד הקריאה הבאה
+        String term;
+        int numDocs;
+        int postingsOffset;
+        int postingsLength;
+
+        // פתיחה בנקודת הדגימה האחרונה שלפני lowerBound (null = מתחילת הבלוק)
+        Reader(String fileName, BlockSparseIndex sparseIndex, String lowerBound, int bufferSize,
+               Executor readAhead) throws IOException {
+            FileInputStream fis = new FileInputStream(fileName);
+            try {
+                ByteBuffer header = ByteBuffer.wrap(fis.readNBytes(HEADER_SIZE));
+                if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                    throw new IOException("Not a SPIMI block file: " + fileName);
+                }
+                int termCount = header.getInt(TERM_COUNT_OFFSET);
+
+                fis.getChannel().position(Math.max(HEADER_SIZE, sparseIndex.seekOffset(lowerBound)));
+                this.remainingTerms = termCount - sparseIndex.seekTermIndex(lowerBound);
+                this.unloadedTerms = remainingTerms;
+                this.in = new DataInputStream(new BufferedInputStream(fis, bufferSize));
+                this.readAhead = readAhead;
+            } catch (IOException e) {
+                fis.close();
+                throw e;
+            }
+        }
+
+        byte[] postings() {
+            return frame.data;
+        }
+
+        // מעבר לרשומה הבאה - false בסוף הבלוק
+        boolean next() throws IOException {
+            if (remainingTerms == 0) {
+                return false;
+            }
+            if (framePosition == frame.length) {
+                nextFrame();
+            }
+
+            int termLength = readVInt();
+            term = new String(frame.data, framePosition, termLength, StandardCharsets.UTF_8);
+            framePosition += termLength;
+            numDocs = readVInt();
+            postingsLength = readVInt();
+            postingsOffset = framePosition;
+            framePosition += postingsLength;
+
+            remainingTerms--;
+            return true;
+        }
+
+        // החלפה למסגרת הבאה; המסגרת הקודמת כבר לא בשימוש ומשמשת כמאגר לקריאה שאחריה
+        private void nextFrame() throws IOException {
+            Frame loaded;
+            if (pendingFrame != null) {
+                loaded = awaitFrame();
+            } else {
+                loaded = readFrame(spare);
+                unloadedTerms -= Math.min(BlockSparseIndex.SAMPLE_INTERVAL, unloadedTerms);
+            }
+            spare = frame;
+            frame = loaded;
+            framePosition = 0;
+
+            if (readAhead != null && unloadedTerms > 0) {
+                Frame target = spare;
+                unloadedTerms -= Math.min(BlockSparseIndex.SAMPLE_INTERVAL, unloadedTerms);
+                pendingFrame = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readFrame(target);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, readAhead);
+            }
+        }
+
+        private Frame awaitFrame() throws IOException {
+            try {
+                return pendingFrame.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException("Block read-ahead failed", e.getCause());
+            } finally {
+                pendingFrame = null;
+            }
+        }
+
+        private Frame readFrame(Frame target) throws IOException {
+            int rawLength = PostingsFormat.readVInt(in);
+            int storedLength = PostingsFormat.readVInt(in);
+            if (target.data.length < rawLength) {
+                target.data = new byte[Math.max(rawLength, target.data.length * 2)];
+            }
+
+            if (storedLength == rawLength) {
+                in.readFully(target.data, 0, rawLength);
+            } else {
+                if (stored.length < storedLength) {
+                    stored = new byte[Math.max(storedLength, stored.length * 2)];
+                }
+                in.readFully(stored, 0, storedLength);
+                inflate(target.data, storedLength, rawLength);
+            }
+
+            target.length = rawLength;
+            return target;
+        }
+
+        private void inflate(byte[] target, int storedLength, int rawLength) throws IOException {
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            inflater.reset();
+            inflater.setInput(stored, 0, storedLength);
+            try {
+                int inflated = 0;
+                while (inflated < rawLength) {
+                    int n = inflater.inflate(target, inflated, rawLength - inflated);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new EOFException("Truncated block frame");
+                    }
+                    inflated += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block frame", e);
+            }
+        }
+
+        private int readVInt() {
+            byte[] data = frame.data;
+            byte b = data[framePosition++];
+            int value = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = data[framePosition++];
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // קריאה שעוד רצה ברקע משתמשת בזרם - מחכים לה לפני הסגירה
+            if (pendingFrame != null) {
+                try {
+                    pendingFrame.join();
+                } catch (CompletionException ignored) {
+                }
+                pendingFrame = null;
+            }
+            if (inflater != null) {
+                inflater.end();
+            }
+            in.close();
+        }
+    }
+
+    private static class Frame {
+        byte[] data = new byte[4096];
+        int length;
+    }
+}
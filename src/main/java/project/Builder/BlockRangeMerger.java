@@ -0,0 +1,207 @@
+package project.Builder;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+// מיזוג k-way של טווח מונחים [lowerBound, upperBound) מכל קבצי הבלוקים (null = ללא גבול).
+// כל בלוק נפתח בנקודת הדגימה האחרונה שלפני הטווח לפי האינדקס הדליל שלו,
+// ה-postings נכתבים לזרם הפלט (offsets יחסיים לתחילתו) ורשומות העלים נמסרות ל-sink
+class BlockRangeMerger {
+    private final List<String> blockFiles;
+    private final List<BlockSparseIndex> blockIndexes;
+    private final String lowerBound;
+    private final String upperBound;
+    private final short postingsVersion;
+    private final int bufferSize;
+    // תהליכון קריאה מוקדמת לכל קובץ בלוק (לפי הדיסק שלו), או null לקריאה סינכרונית
+    private final Function<String, Executor> readAhead;
+
+    // יעד לרשומות העלים של הטווח - בסדר מונחים עולה
+    interface LeafEntrySink {
+        void add(String term, int numDocs, long postingsOffset) throws IOException;
+    }
+
+    // יעד למונחים הממוזגים עם ה-postings המקודדים שלהם - בסדר מונחים עולה
+    interface TermSink {
+        void add(String term, int numDocs, byte[] postings, int offset, int length) throws IOException;
+    }
+
+    BlockRangeMerger(List<String> blockFiles, List<BlockSparseIndex> blockIndexes,
+                     String lowerBound, String upperBound, short postingsVersion, int bufferSize,
+                     Function<String, Executor> readAhead) {
+        this.blockFiles = blockFiles;
+        this.blockIndexes = blockIndexes;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.postingsVersion = postingsVersion;
+        this.bufferSize = bufferSize;
+        this.readAhead = readAhead;
+    }
+
+    // מיזוג הטווח לקובץ postings (offsets יחסיים לתחילת הזרם) - מחזיר את מספר המונחים שנכתבו
+    int merge(DataOutputStream postingsOutput, LeafEntrySink sink) throws IOException {
+        return merge(new TermSink() {
+            private long postingsOffset = 0;
+
+            @Override
+            public void add(String term, int numDocs, byte[] postings, int offset, int length) throws IOException {
+                postingsOutput.write(postings, offset, length);
+                sink.add(term, numDocs, postingsOffset);
+                postingsOffset += length;
+            }
+        });
+    }
+
+    // מיזוג הטווח ליעד כללי (למשל קובץ בלוק ביניים) - מחזיר את מספר המונחים שנכתבו
+    int merge(TermSink sink) throws IOException {
+        // PriorityQueue לאופטימיזציה של המיזוג
+        PriorityQueue<TermStream> termQueue = new PriorityQueue<>();
+        List<BlockFile.Reader> openReaders = new ArrayList<>();
+
+        try {
+            // פתיחת כל הבלוקים בתחילת הטווח והכנסה ל-PriorityQueue
+            for (int i = 0; i < blockFiles.size(); i++) {
+                String fileName = blockFiles.get(i);
+                BlockFile.Reader reader = new BlockFile.Reader(fileName, blockIndexes.get(i), lowerBound,
+                        bufferSize, readAhead == null ? null : readAhead.apply(fileName));
+                openReaders.add(reader);
+
+                TermStream stream = new TermStream(i, reader);
+                if (readFirstTerm(stream)) {
+                    termQueue.offer(stream);
+                }
+            }
+
+            return mergeStreams(termQueue, sink);
+        } finally {
+            for (BlockFile.Reader reader : openReaders) {
+                reader.close();
+            }
+        }
+    }
+
+    private int mergeStreams(PriorityQueue<TermStream> termQueue, TermSink sink) throws IOException {
+        int termCount = 0;
+        List<TermStream> sameTermStreams = new ArrayList<>();
+        PostingsRun merged = new PostingsRun();
+        BlockFile.Buffer encoded = new BlockFile.Buffer();
+        DataOutputStream encoder = new DataOutputStream(encoded);
+
+        while (!termQueue.isEmpty()) {
+            // איסוף כל הזרמים עם המונח הקטן ביותר - בסדר הבלוקים (שובר השוויון של התור)
+            sameTermStreams.clear();
+            TermStream currentStream = termQueue.poll();
+            String currentTerm = currentStream.currentTerm;
+            sameTermStreams.add(currentStream);
+            while (!termQueue.isEmpty() && termQueue.peek().currentTerm.equals(currentTerm)) {
+                sameTermStreams.add(termQueue.poll());
+            }
+
+            // מונח מבלוק יחיד (רוב אוצר המילים) מועתק כבתים כמו שהוא;
+            // אחרת פענוח, מיזוג ליניארי של הרשימות הממוינות וקידוד מחדש
+            if (sameTermStreams.size() == 1) {
+                BlockFile.Reader reader = currentStream.reader;
+                sink.add(currentTerm, reader.numDocs, reader.postings(), reader.postingsOffset, reader.postingsLength);
+            } else {
+                PostingsRun postings = mergeRuns(sameTermStreams, merged);
+                encoded.reset();
+                postings.encode(encoder, postingsVersion);
+                sink.add(currentTerm, postings.numDocs, encoded.array(), 0, encoded.size());
+            }
+            termCount++;
+
+            // קריאת המונח הבא מכל הזרמים שעובדו (המאגרים שלהם כבר נכתבו) והחזרה ל-queue
+            for (TermStream stream : sameTermStreams) {
+                if (readNextTerm(stream)) {
+                    termQueue.offer(stream);
+                }
+            }
+        }
+
+        return termCount;
+    }
+
+    // מיזוג רשימות שכל אחת ממוינת לפי docId. ה-docId גדלים לאורך הסריקה ולכן ברוב המקרים
+    // הרשימות פשוט נשרשרות; מסמך שנחתך בין שני בלוקים מקבל את המיקומים של כולם לפי סדר הבלוקים
+    private PostingsRun mergeRuns(List<TermStream> streams, PostingsRun target) {
+        int runs = streams.size();
+        int[] cursors = new int[runs];
+        int totalLength = 0;
+        for (TermStream stream : streams) {
+            BlockFile.Reader reader = stream.reader;
+            stream.postings.decode(reader.postings(), reader.postingsOffset, reader.postingsLength,
+                    reader.numDocs, postingsVersion);
+            totalLength += stream.postings.length;
+        }
+        target.reset(totalLength);
+
+        while (true) {
+            int minDocId = Integer.MAX_VALUE;
+            boolean found = false;
+            for (int r = 0; r < runs; r++) {
+                PostingsRun run = streams.get(r).postings;
+                if (cursors[r] < run.length && (!found || run.data[cursors[r]] < minDocId)) {
+                    minDocId = run.data[cursors[r]];
+                    found = true;
+                }
+            }
+            if (!found) {
+                return target;
+            }
+
+            int countIndex = target.startDocument(minDocId);
+            for (int r = 0; r < runs; r++) {
+                PostingsRun run = streams.get(r).postings;
+                int cursor = cursors[r];
+                if (cursor < run.length && run.data[cursor] == minDocId) {
+                    int count = run.data[cursor + 1];
+                    target.appendPositions(countIndex, run.data, cursor + 2, count);
+                    cursors[r] = cursor + 2 + count;
+                }
+            }
+        }
+    }
+
+    // המונח הראשון בבלוק שנמצא בטווח - דילוג על המונחים שבין נקודת הדגימה לגבול התחתון
+    private boolean readFirstTerm(TermStream stream) throws IOException {
+        boolean hasTerm = readNextTerm(stream);
+        while (hasTerm && lowerBound != null && stream.currentTerm.compareTo(lowerBound) < 0) {
+            hasTerm = readNextTerm(stream);
+        }
+        return hasTerm;
+    }
+
+    // מעבר לרשומה הבאה של הבלוק (false בסוף הבלוק או בגבול העליון של הטווח).
+    // ה-postings נשארים מקודדים במאגר של קורא הבלוק
+    private boolean readNextTerm(TermStream stream) throws IOException {
+        BlockFile.Reader reader = stream.reader;
+        if (!reader.next()) {
+            return false;
+        }
+        if (upperBound != null && reader.term.compareTo(upperBound) >= 0) {
+            return false;
+        }
+        stream.currentTerm = reader.term;
+        return true;
+    }
+
+    private static class TermStream implements Comparable<TermStream> {
+        final int blockIndex;
+        final BlockFile.Reader reader;
+        final PostingsRun postings = new PostingsRun();
+        String currentTerm;
+
+        TermStream(int blockIndex, BlockFile.Reader reader) {
+            this.blockIndex = blockIndex;
+            this.reader = reader;
+        }
+
+        @Override
+        public int compareTo(TermStream other) {
+            int cmp = this.currentTerm.compareTo(other.currentTerm);
+            return cmp != 0 ? cmp : Integer.compare(this.blockIndex, other.blockIndex);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package project.Builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// אינדקס דליל של קובץ בלוק: מונח דגימה ו-offset כל SAMPLE_INTERVAL מונחים, שנרשם בזמן הכתיבה.
+// משמש לחלוקת מרחב המונחים לטווחים במיזוג המקבילי ולקפיצה לתחילת טווח בכל בלוק
+class BlockSparseIndex {
+    static final int SAMPLE_INTERVAL = 128;
+
+    private final List<String> terms = new ArrayList<>();
+    private long[] offsets = new long[16];
+    private long length;
+
+    void add(String term, long offset) {
+        if (terms.size() == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[terms.size()] = offset;
+        terms.add(term);
+    }
+
+    void setLength(long length) {
+        this.length = length;
+    }
+
+    // ה-offset של הדגימה האחרונה שהמונח שלה קטן או שווה למונח הנתון (0 אם אין כזו או שהמונח null)
+    long seekOffset(String term) {
+        int index = sampleIndex(term);
+        return index < 0 ? 0 : offsets[index];
+    }
+
+    // מספר המונחים בבלוק שלפני נקודת הקפיצה של seekOffset
+    int seekTermIndex(String term) {
+        return Math.max(0, sampleIndex(term)) * SAMPLE_INTERVAL;
+    }
+
+    private int sampleIndex(String term) {
+        if (term == null) {
+            return -1;
+        }
+        int index = Collections.binarySearch(terms, term);
+        return index < 0 ? -index - 2 : index;
+    }
+
+    // בחירת עד partitions-1 מונחי חלוקה כך שלכל טווח נופל חלק דומה מהבתים של כל הבלוקים
+    static List<String> splitPoints(List<BlockSparseIndex> indexes, int partitions) {
+        List<String> splitPoints = new ArrayList<>();
+        if (partitions <= 1) {
+            return splitPoints;
+        }
+
+        // כל דגימה "מכסה" את הבתים עד הדגימה הבאה באותו בלוק
+        List<String> sampleTerms = new ArrayList<>();
+        List<Long> sampleBytes = new ArrayList<>();
+        long totalBytes = 0;
+        for (BlockSparseIndex index : indexes) {
+            for (int i = 0; i < index.terms.size(); i++) {
+                long end = i + 1 < index.terms.size() ? index.offsets[i + 1] : index.length;
+                sampleTerms.add(index.terms.get(i));
+                sampleBytes.add(end - index.offsets[i]);
+                totalBytes += end - index.offsets[i];
+            }
+        }
+
+        Integer[] order = new Integer[sampleTerms.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> sampleTerms.get(a).compareTo(sampleTerms.get(b)));
+
+        long cumulative = 0;
+        int nextSplit = 1;
+        for (Integer sample : order) {
+            String term = sampleTerms.get(sample);
+            if (cumulative >= totalBytes * nextSplit / partitions
+                    && (splitPoints.isEmpty() || term.compareTo(splitPoints.get(splitPoints.size() - 1)) > 0)
+                    && cumulative > 0) {
+                splitPoints.add(term);
+                nextSplit++;
+                if (nextSplit == partitions) {
+                    break;
+                }
+            }
+            cumulative += sampleBytes.get(sample);
+        }
+        return splitPoints;
+    }
+}
@@ -0,0 +1,23 @@
+package project.Builder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// פעולות עזר על קבצים זמניים של הבנייה
+final class ChannelFiles {
+    private ChannelFiles() {
+    }
+
+    // העתקת קובץ זמני לסוף הקובץ הסופי
+    static void appendFile(Path source, FileChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, target);
+            }
+        }
+    }
+}
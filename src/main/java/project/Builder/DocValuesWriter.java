@@ -0,0 +1,141 @@
+package project.Builder;
+
+import project.Common.DocValuesFormat;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// כתיבת קובץ ה-doc values (ראה DocValuesFormat) לפי סדר ה-docId.
+// מספר המסמכים לא ידוע עד הסוף, לכן כל עמודה נכתבת לקובץ זמני משלה
+// ובסגירה העמודות משורשרות לקובץ הסופי אחרי ה-Header
+class DocValuesWriter implements AutoCloseable {
+    private final Path file;
+    private final Path[] columnFiles = new Path[DocValuesFormat.COLUMN_COUNT];
+    private final DataOutputStream[] columns = new DataOutputStream[DocValuesFormat.COLUMN_COUNT];
+    private final Map<String, Integer> extensionIds = new HashMap<>();
+    private final List<String> extensions = new ArrayList<>();
+    private int documentCount;
+
+    DocValuesWriter(String file, int bufferSize) throws IOException {
+        this.file = Path.of(file);
+        try {
+            for (int c = 0; c < columns.length; c++) {
+                columnFiles[c] = Path.of(file + ".col" + c);
+                columns[c] = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(columnFiles[c].toFile()), bufferSize));
+            }
+        } catch (IOException e) {
+            closeColumns();
+            deleteColumns();
+            throw e;
+        }
+    }
+
+    // המסמך הבא לפי סדר ה-docId
+    synchronized void add(BasicFileAttributes attrs, String extension) throws IOException {
+        byte flags = 0;
+        if (attrs != null) {
+            if (attrs.isDirectory()) {
+                flags |= DocValuesFormat.FLAG_DIRECTORY;
+            }
+            if (attrs.isSymbolicLink()) {
+                flags |= DocValuesFormat.FLAG_SYMBOLIC_LINK;
+            }
+            if (attrs.isOther()) {
+                flags |= DocValuesFormat.FLAG_OTHER;
+            }
+        }
+
+        columns[DocValuesFormat.SIZE].writeLong(attrs == null ? 0 : attrs.size());
+        columns[DocValuesFormat.MODIFIED].writeLong(attrs == null ? 0 : attrs.lastModifiedTime().toMillis());
+        columns[DocValuesFormat.CREATED].writeLong(attrs == null ? 0 : attrs.creationTime().toMillis());
+        columns[DocValuesFormat.EXTENSION].writeShort(extensionId(extension));
+        columns[DocValuesFormat.FLAGS].writeByte(flags);
+        documentCount++;
+    }
+
+    // מזהה 0 שמור ל"אין סיומת"; אחרי MAX_EXTENSION_ID סיומות שונות, סיומות חדשות נשמרות כ-0
+    private int extensionId(String extension) {
+        if (extension.isEmpty()) {
+            return 0;
+        }
+        Integer id = extensionIds.get(extension);
+        if (id == null) {
+            if (extensions.size() == DocValuesFormat.MAX_EXTENSION_ID) {
+                return 0;
+            }
+            extensions.add(extension);
+            id = extensions.size();
+            extensionIds.put(extension, id);
+        }
+        return id;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            closeColumns();
+
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(target)));
+
+                long extensionTableOffset = DocValuesFormat.columnOffset(DocValuesFormat.COLUMN_COUNT, documentCount);
+                out.writeInt(DocValuesFormat.MAGIC);
+                out.writeInt(documentCount);
+                out.writeLong(extensionTableOffset);
+                out.flush();
+
+                for (Path columnFile : columnFiles) {
+                    ChannelFiles.appendFile(columnFile, target);
+                }
+
+                out.writeInt(extensions.size());
+                for (String extension : extensions) {
+                    out.writeUTF(extension);
+                }
+                out.flush();
+            }
+        } finally {
+            deleteColumns();
+        }
+    }
+
+    private void closeColumns() throws IOException {
+        IOException failure = null;
+        for (DataOutputStream column : columns) {
+            if (column == null) {
+                continue;
+            }
+            try {
+                column.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void deleteColumns() {
+        for (Path columnFile : columnFiles) {
+            if (columnFile != null) {
+                try {
+                    Files.deleteIfExists(columnFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
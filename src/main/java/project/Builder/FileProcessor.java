@@ -1,10 +1,11 @@
 package project.Builder;
 
 import project.Common.Config;
+import project.Common.DocValuesFormat;
+import project.Common.FileCategory;
 import project.Common.ProjectLogger;
 import project.Common.TextAnalyzer;
 import project.Common.TextExtractor;
-import org.apache.commons.io.output.CountingOutputStream;
 
 
 import java.io.*;
@@ -23,8 +24,9 @@ public class FileProcessor implements AutoCloseable {
     public static final AtomicLong textFileCount  = new AtomicLong(0);
 
 
-    private final CountingOutputStream countingOut;
-    private final DataOutputStream pathDataWriter;
+    private final PathStoreWriter pathStore;
+    private final DocValuesWriter docValues;
+    private final FileTypePostingsWriter fileTypes;
 
     private final DataOutputStream fileNameLenDataWriter;
     private final DataOutputStream textFileLenDataWriter;
@@ -33,14 +35,14 @@ public class FileProcessor implements AutoCloseable {
     private final SPIMIInvertedIndex contentInvertedIndex;
 
     public FileProcessor(SPIMIInvertedIndex nameInvertedIndex,
-                         SPIMIInvertedIndex contentInvertedIndex) throws FileNotFoundException {
+                         SPIMIInvertedIndex contentInvertedIndex) throws IOException {
 
         this.config = Config.getInstance();
 
-        this.countingOut = new CountingOutputStream(
-                new BufferedOutputStream(new FileOutputStream(config.getPathsFile()),
-                        config.getBufferSize()));
-        this.pathDataWriter = new DataOutputStream(countingOut);
+        this.pathStore = new PathStoreWriter(config.getPathsFile(), config.getPathOffsetsFile(),
+                config.getPathsBufferSize(), config.getPathStoreFormat());
+        this.docValues = new DocValuesWriter(config.getDocValuesFile(), config.getBufferSize());
+        this.fileTypes = new FileTypePostingsWriter(config.getFileTypesFile(), config.getBufferSize());
 
         this.fileNameLenDataWriter = new DataOutputStream(new BufferedOutputStream(
                 new FileOutputStream(config.getLenFile("name")),
@@ -71,7 +73,7 @@ public class FileProcessor implements AutoCloseable {
         int docId;
 
         try{
-            docId = writePathToDisk(path.toString());
+            docId = registerDocument(path, attrs);
         } catch (IOException e) {
             ProjectLogger.error("Failed to write path to disk: " + path);
             return;
@@ -92,20 +94,40 @@ public class FileProcessor implements AutoCloseable {
         }
     }
 
-    private int writePathToDisk(String path) throws IOException {
-        int offset = countingOut.getCount(); // get current position before writing
-        pathDataWriter.writeUTF(path);
-        pathDataWriter.flush();
-        return offset;
+    // רישום המסמך: הנתיב קובע את ה-docId, ומאפייני הקובץ וקטגוריית הסוג נשמרים באותו סדר
+    synchronized int registerDocument(Path path, BasicFileAttributes attrs) throws IOException {
+        boolean directory = attrs != null && attrs.isDirectory();
+        String extension = directory || path.getFileName() == null
+                ? "" : DocValuesFormat.extensionOf(path.getFileName().toString());
+
+        int docId = pathStore.append(path.toString());
+        docValues.add(attrs, extension);
+        fileTypes.add(docId, FileCategory.of(extension, directory));
+        return docId;
     }
 
     private void processNameFile(Path path, int docId) throws IOException {
+        indexFileName(docId, analyzeFileName(path));
+    }
+
+    private void processTextFile(Path path, int docId, BasicFileAttributes attrs) throws IOException {
+        File file = path.toFile();
+        String text = TextExtractor.extractText(file);
+
+        indexFileContent(docId, normalizeTokens(text));
+    }
+
+    // פירוק שם הקובץ (ללא סיומת) למונחים מנורמלים
+    static List<String> analyzeFileName(Path path) {
         String fileName = path.getFileName().toString();
         int dotIndex = fileName.lastIndexOf('.');
         String text = (dotIndex == -1) ? fileName : fileName.substring(0, dotIndex);
 
-        List<String> tokens = TextAnalyzer.tokenize(text);
+        return normalizeTokens(text);
+    }
 
+    static List<String> normalizeTokens(String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
 
         List<String> normalizedTokens = new ArrayList<>();
         for (String token : tokens) {
@@ -114,40 +136,36 @@ public class FileProcessor implements AutoCloseable {
                 normalizedTokens.add(normalized);
             }
         }
+        return normalizedTokens;
+    }
 
+    // שמירת אורך שם הקובץ והכנסת המונחים לאינדקס השמות
+    void indexFileName(int docId, List<String> normalizedTokens) {
         writeFileNameLen(docId, normalizedTokens.size());
+        addFileNameTerms(docId, normalizedTokens);
+    }
 
-
+    void addFileNameTerms(int docId, List<String> normalizedTokens) {
         for (int i = 0; i < normalizedTokens.size(); i++) {
             String term = normalizedTokens.get(i);
             nameInvertedIndex.addToTempIndex(term, docId, i);
         }
     }
 
-    private void processTextFile(Path path, int docId, BasicFileAttributes attrs) throws IOException {
-        File file = path.toFile();
-        String text = TextExtractor.extractText(file);
-
-        List<String> tokens = TextAnalyzer.tokenize(text);
-
-        List<String> normalizedTokens = new ArrayList<>();
-        for (String token : tokens) {
-            String normalized = TextAnalyzer.normalize(token);
-            if (!normalized.isEmpty()) {
-                normalizedTokens.add(normalized);
-            }
-        }
-
-
+    // שמירת אורך התוכן והכנסת המונחים לאינדקס התוכן
+    void indexFileContent(int docId, List<String> normalizedTokens) {
         writeFileContentLen(docId, normalizedTokens.size());
+        addFileContentTerms(docId, normalizedTokens);
+    }
 
+    void addFileContentTerms(int docId, List<String> normalizedTokens) {
         for (int i = 0; i < normalizedTokens.size(); i++) {
             String term = normalizedTokens.get(i);
             contentInvertedIndex.addToTempIndex(term, docId, i);
         }
     }
 
-    private void writeFileNameLen(int docId, int size) {
+    void writeFileNameLen(int docId, int size) {
         fileCount.incrementAndGet();
         filenameLength.addAndGet(size);
 
@@ -160,7 +178,7 @@ public class FileProcessor implements AutoCloseable {
 
     }
 
-    private void writeFileContentLen(int docId, int size) {
+    void writeFileContentLen(int docId, int size) {
         textFileCount.incrementAndGet();
         contentLength.addAndGet(size);
 
@@ -176,7 +194,9 @@ public class FileProcessor implements AutoCloseable {
     @Override
     public void close() {
         try {
-            pathDataWriter.close();
+            pathStore.close();
+            docValues.close();
+            fileTypes.close();
 
             // סגור קודם את ה-DataOutputStream של השמות
             fileNameLenDataWriter.flush();
@@ -0,0 +1,94 @@
+package project.Builder;
+
+import project.Common.FileCategory;
+import project.Common.FileTypePostingsFormat;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// כתיבת רשימות ה-docId של כל קטגוריית סוג קובץ (ראה FileTypePostingsFormat).
+// ה-docId מגיעים בסדר עולה, כך שכל רשימה נכתבת ממוינת לקובץ זמני משלה ובסגירה הרשימות משורשרות
+class FileTypePostingsWriter implements AutoCloseable {
+    private final Path file;
+    private final Path[] listFiles = new Path[FileCategory.COUNT];
+    private final DataOutputStream[] lists = new DataOutputStream[FileCategory.COUNT];
+    private final int[] counts = new int[FileCategory.COUNT];
+
+    FileTypePostingsWriter(String file, int bufferSize) throws IOException {
+        this.file = Path.of(file);
+        try {
+            for (int c = 0; c < lists.length; c++) {
+                listFiles[c] = Path.of(file + ".cat" + c);
+                lists[c] = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(listFiles[c].toFile()), bufferSize));
+            }
+        } catch (IOException e) {
+            closeLists();
+            deleteLists();
+            throw e;
+        }
+    }
+
+    synchronized void add(int docId, int category) throws IOException {
+        lists[category].writeInt(docId);
+        counts[category]++;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            closeLists();
+
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(FileTypePostingsFormat.HEADER_SIZE);
+                header.putInt(FileTypePostingsFormat.MAGIC);
+                for (int count : counts) {
+                    header.putInt(count);
+                }
+                header.flip();
+                while (header.hasRemaining()) {
+                    target.write(header);
+                }
+
+                for (Path listFile : listFiles) {
+                    ChannelFiles.appendFile(listFile, target);
+                }
+            }
+        } finally {
+            deleteLists();
+        }
+    }
+
+    private void closeLists() throws IOException {
+        IOException failure = null;
+        for (DataOutputStream list : lists) {
+            if (list == null) {
+                continue;
+            }
+            try {
+                list.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void deleteLists() {
+        for (Path listFile : listFiles) {
+            if (listFile != null) {
+                try {
+                    Files.deleteIfExists(listFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
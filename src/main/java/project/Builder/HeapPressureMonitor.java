@@ -0,0 +1,55 @@
+package project.Builder;
+
+import project.Common.Config;
+import project.Common.ProjectLogger;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.AtomicLong;
+
+// מעקב אחר לחץ זיכרון ב-heap באמצעות התראות MemoryMXBean:
+// כאשר הזיכרון שנשאר תפוס אחרי GC עובר את הסף, נפתח "עידן" חדש
+// וכל בלוק SPIMI שעוד לא נכתב בעידן הזה נכתב לדיסק בהכנסה הבאה אליו
+final class HeapPressureMonitor {
+    private static final HeapPressureMonitor INSTANCE = new HeapPressureMonitor();
+
+    private final AtomicLong pressureEpoch = new AtomicLong(0);
+
+    private HeapPressureMonitor() {
+        double threshold = Config.getInstance().getDouble("heap.flush.threshold");
+        if (threshold <= 0 || threshold >= 1) {
+            return;
+        }
+
+        boolean registered = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * threshold));
+                registered = true;
+            }
+        }
+
+        if (registered) {
+            NotificationListener listener = (notification, handback) -> {
+                if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+                    pressureEpoch.incrementAndGet();
+                    ProjectLogger.warning("Heap usage after GC exceeded threshold - flushing SPIMI blocks");
+                }
+            };
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+        }
+    }
+
+    static HeapPressureMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    long getPressureEpoch() {
+        return pressureEpoch.get();
+    }
+}
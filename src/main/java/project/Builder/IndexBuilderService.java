@@ -9,14 +9,17 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.*;
 
 public class IndexBuilderService {
     private final SPIMIInvertedIndex nameInvertedIndex;
     private final SPIMIInvertedIndex contentInvertedIndex;
 
     public IndexBuilderService() {
-        this.nameInvertedIndex = new SPIMIInvertedIndex("name");
-        this.contentInvertedIndex = new SPIMIInvertedIndex("content");
+        // תקרת I/O אחת לשני המיזוגים, כך שמיזוג מקבילי לא מציף את הדיסק
+        Semaphore mergeIoPermits = new Semaphore(Config.getInstance().getMergeIoConcurrency());
+        this.nameInvertedIndex = new SPIMIInvertedIndex("name", mergeIoPermits);
+        this.contentInvertedIndex = new SPIMIInvertedIndex("content", mergeIoPermits);
     }
 
     public void start(List<Path> pathsToIndex) throws IOException {
@@ -25,7 +28,9 @@ public class IndexBuilderService {
 
         long start = System.nanoTime();
         EnumSet<FileVisitOption> options = EnumSet.noneOf(FileVisitOption.class);
-        try (FileProcessor fileProcessor = new FileProcessor(nameInvertedIndex, contentInvertedIndex)) {
+        try (FileProcessor fileProcessor = new FileProcessor(nameInvertedIndex, contentInvertedIndex);
+             IndexingPipeline pipeline = Config.getInstance().isPipelineEnabled()
+                     ? new IndexingPipeline(fileProcessor) : null) {
             for (Path rootPath : pathsToIndex) {
                 try {
                     Files.walkFileTree(rootPath, options, Integer.MAX_VALUE, new SimpleFileVisitor<>() {
@@ -49,7 +54,11 @@ public class IndexBuilderService {
 
                         private void safeProcess(Path path, BasicFileAttributes attrs) throws IOException {
                             try {
-                                fileProcessor.processFileOrDirectory(path, attrs);
+                                if (pipeline != null) {
+                                    pipeline.submit(path, attrs);
+                                } else {
+                                    fileProcessor.processFileOrDirectory(path, attrs);
+                                }
                             } catch (NullPointerException e) {
                                 ProjectLogger.error("Null path component at: " + path);
                             }
@@ -67,11 +76,44 @@ public class IndexBuilderService {
 
         start = System.nanoTime();
 
-        nameInvertedIndex.mergeBlocks();
-        contentInvertedIndex.mergeBlocks();
+        if (Config.getInstance().isConcurrentMerge()) {
+            mergeConcurrently();
+        } else {
+            nameInvertedIndex.mergeBlocks();
+            contentInvertedIndex.mergeBlocks();
+        }
         end = System.nanoTime();
 
         SecureIndexFolder.lockFolder(Config.getInstance().getIndexPath());
         System.out.println("\nזמן מיזוג ובניית עצי B+ (בשלב אחד) : " + (end-start)/1000000 + " מילישניות.");
     }
+
+    // שני המיזוגים בלתי תלויים (קבצים נפרדים) - הזמן הכולל הוא של האיטי מביניהם
+    private void mergeConcurrently() throws IOException {
+        ExecutorService mergePool = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "index-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Future<?> nameMerge = mergePool.submit(nameInvertedIndex::mergeBlocks);
+            Future<?> contentMerge = mergePool.submit(contentInvertedIndex::mergeBlocks);
+            awaitMerge(nameMerge);
+            awaitMerge(contentMerge);
+        } finally {
+            mergePool.shutdown();
+        }
+    }
+
+    private static void awaitMerge(Future<?> merge) throws IOException {
+        try {
+            merge.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Merge interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Index merge failed", e.getCause());
+        }
+    }
 }
\ No newline at end of file
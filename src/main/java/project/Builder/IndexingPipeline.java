@@ -0,0 +1,226 @@
+package project.Builder;
+
+import project.Common.Config;
+import project.Common.ProjectLogger;
+import project.Common.TextExtractor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.*;
+
+// צינור אינדוקס מקבילי: סורק -> חילוץ טקסט -> פירוק למונחים -> הכנסה לאינדקס
+// ה-docId נקבע בסדר הסריקה, והכנסה לאינדקס מתבצעת בתהליכון יחיד לפי אותו סדר,
+// כך שקבצי האינדקס זהים לחלוטין לאלו של הבנייה הסדרתית.
+// במצב sharded תהליכוני הפירוק מכניסים את המונחים ל-shard פרטי של SPIMI,
+// וה-sink רק רושם את אורכי המסמכים לפי הסדר
+public class IndexingPipeline implements AutoCloseable {
+    private final FileProcessor fileProcessor;
+    private final boolean sharded;
+
+    private final ExecutorService extractPool;
+    private final ExecutorService tokenizePool;
+
+    // תור המסמכים לפי סדר הסריקה - מוגבל בגודלו ולכן מאט את הסורק (back-pressure)
+    private final BlockingQueue<Future<DocumentTask>> orderedQueue;
+    private final Thread sinkThread;
+
+    private static final Future<DocumentTask> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    private volatile Throwable failure;
+
+    public IndexingPipeline(FileProcessor fileProcessor) {
+        Config config = Config.getInstance();
+        this.fileProcessor = fileProcessor;
+        this.sharded = config.isShardedIndexing();
+
+        int queueSize = config.getPipelineQueueSize();
+        this.extractPool = newStagePool("Extract", config.getPipelineThreads("extract"), queueSize);
+        this.tokenizePool = newStagePool("Tokenize", config.getPipelineThreads("tokenize"), queueSize);
+        this.orderedQueue = new ArrayBlockingQueue<>(queueSize);
+
+        this.sinkThread = new Thread(this::runSink, "IndexSink");
+        this.sinkThread.setDaemon(true);
+        this.sinkThread.start();
+    }
+
+    // שלב הסורק: רישום הנתיב (קביעת docId) והעברת המסמך לשלבי העיבוד
+    public void submit(Path path, BasicFileAttributes attrs) throws IOException {
+        checkFailure();
+
+        int docId;
+        try {
+            docId = fileProcessor.registerDocument(path, attrs);
+        } catch (IOException e) {
+            ProjectLogger.error("Failed to write path to disk: " + path);
+            return;
+        }
+
+        DocumentTask task = new DocumentTask(path, docId);
+        Future<DocumentTask> result = CompletableFuture
+                .supplyAsync(() -> extract(task), extractPool)
+                .thenApplyAsync(this::tokenize, tokenizePool);
+
+        try {
+            orderedQueue.put(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Indexing pipeline interrupted");
+        }
+    }
+
+    // שלב החילוץ: קריאת תוכן הקובץ
+    private DocumentTask extract(DocumentTask task) {
+        try {
+            if (TextExtractor.isSupportedFile(task.path)) {
+                task.text = TextExtractor.extractText(task.path.toFile());
+            }
+        } catch (IOException e) {
+            task.contentFailed = true;
+        } catch (NullPointerException e) {
+            task.nullPath = true;
+        }
+        return task;
+    }
+
+    // שלב הפירוק: נרמול שם הקובץ והתוכן למונחים
+    private DocumentTask tokenize(DocumentTask task) {
+        if (task.nullPath) {
+            return task;
+        }
+        try {
+            task.nameTokens = FileProcessor.analyzeFileName(task.path);
+        } catch (NullPointerException e) {
+            task.nullPath = true;
+            return task;
+        }
+        if (task.text != null) {
+            task.contentTokens = FileProcessor.normalizeTokens(task.text);
+            task.text = null;
+        }
+
+        if (sharded) {
+            fileProcessor.addFileNameTerms(task.docId, task.nameTokens);
+            if (task.contentTokens != null) {
+                fileProcessor.addFileContentTerms(task.docId, task.contentTokens);
+            }
+        }
+        return task;
+    }
+
+    // שלב ההכנסה: תהליכון יחיד שמוסיף לאינדקסים לפי סדר ה-docId
+    private void runSink() {
+        while (true) {
+            Future<DocumentTask> next;
+            try {
+                next = orderedQueue.take();
+            } catch (InterruptedException e) {
+                failure = e;
+                return;
+            }
+            if (next == END_OF_STREAM) {
+                return;
+            }
+
+            try {
+                DocumentTask task = next.get();
+                if (failure == null) {
+                    apply(task);
+                }
+            } catch (ExecutionException e) {
+                recordFailure(e.getCause());
+            } catch (InterruptedException e) {
+                failure = e;
+                return;
+            } catch (RuntimeException e) {
+                recordFailure(e);
+            }
+        }
+    }
+
+    private void apply(DocumentTask task) {
+        if (task.nullPath) {
+            ProjectLogger.error("Null path component at: " + task.path);
+            return;
+        }
+
+        if (sharded) {
+            fileProcessor.writeFileNameLen(task.docId, task.nameTokens.size());
+        } else {
+            fileProcessor.indexFileName(task.docId, task.nameTokens);
+        }
+
+        if (task.contentFailed) {
+            ProjectLogger.error("Error while reading file content: " + task.path.getFileName());
+        } else if (task.contentTokens != null) {
+            if (sharded) {
+                fileProcessor.writeFileContentLen(task.docId, task.contentTokens.size());
+            } else {
+                fileProcessor.indexFileContent(task.docId, task.contentTokens);
+            }
+        }
+    }
+
+    private void recordFailure(Throwable t) {
+        if (failure == null) {
+            failure = t;
+            ProjectLogger.error("Indexing pipeline failed: " + t.getMessage());
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure;
+        if (t != null) {
+            throw new IOException("Indexing pipeline failed", t);
+        }
+    }
+
+    // המתנה לסיום כל המסמכים שבדרך וסגירת התהליכונים
+    @Override
+    public void close() throws IOException {
+        try {
+            orderedQueue.put(END_OF_STREAM);
+            sinkThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Indexing pipeline interrupted");
+        } finally {
+            extractPool.shutdownNow();
+            tokenizePool.shutdownNow();
+        }
+        checkFailure();
+    }
+
+    // מאגר תהליכונים לשלב בצינור; התור חסום בגודל חלון הצינור
+    private static ExecutorService newStagePool(String stageName, int threads, int queueSize) {
+        ThreadFactory factory = new ThreadFactory() {
+            private int counter = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, stageName + "-" + counter++);
+                t.setDaemon(true);
+                return t;
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize + 1), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static class DocumentTask {
+        final Path path;
+        final int docId;
+        String text;
+        List<String> nameTokens;
+        List<String> contentTokens;
+        boolean contentFailed;
+        boolean nullPath;
+
+        DocumentTask(Path path, int docId) {
+            this.path = path;
+            this.docId = docId;
+        }
+    }
+}
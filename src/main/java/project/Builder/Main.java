@@ -62,7 +62,10 @@ public class Main {
                 config.getPostingsFile("content"),
                 config.getBPlusTreeFile("content"),
                 config.getLenFile("content"),
-                config.getPathsFile()
+                config.getPathsFile(),
+                config.getPathOffsetsFile(),
+                config.getDocValuesFile(),
+                config.getFileTypesFile()
         };
 
         boolean allFilesExist = true;
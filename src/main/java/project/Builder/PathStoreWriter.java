@@ -0,0 +1,222 @@
+package project.Builder;
+
+import project.Common.PathStoreFormat;
+import project.Common.PostingsFormat;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// כתיבת קובץ הנתיבים דרך מאגר גדול ישירות ל-FileChannel, ללא flush לכל נתיב (הפורמטים ב-PathStoreFormat).
+// ה-docId הוא מספר סידורי רציף (0, 1, 2, ...) וה-offset של הנתיבים נשמר בטבלת offsets
+// ברוחב קבוע של 8 בתים לכל רשומה, כך שמבנים לכל מסמך יכולים להיות מערכים שטוחים
+class PathStoreWriter implements AutoCloseable {
+    private static final int RECENT_DIRECTORIES = 1024;
+
+    private final short format;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final FileChannel offsetsChannel;
+    private final ByteBuffer offsetsBuffer;
+    private byte[] scratch = new byte[256];
+    private long offset;
+    private int nextDocId;
+
+    // DIRECTORY_TREE: מזהה לכל (תיקיית אב, קטע שם), והרשומות של טבלת התיקיות עד הכתיבה בסגירה
+    private final Map<DirectoryKey, Integer> directories = new HashMap<>();
+    private final BlockFile.Buffer directoryTable = new BlockFile.Buffer();
+    private final DataOutputStream directoryTableOut = new DataOutputStream(directoryTable);
+    // התיקיות האחרונות לפי נתיב מלא - קבצים מאותה תיקייה מגיעים בדרך כלל ברצף
+    private final Map<String, Integer> recentDirectories =
+            new LinkedHashMap<>(RECENT_DIRECTORIES * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > RECENT_DIRECTORIES;
+                }
+            };
+
+    PathStoreWriter(String pathsFile, String offsetsFile, int bufferSize, short format) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(Path.of(pathsFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 4 * 1024));
+        try {
+            this.offsetsChannel = FileChannel.open(Path.of(offsetsFile), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.offsetsBuffer = ByteBuffer.allocate(PathStoreFormat.OFFSET_ENTRY_SIZE * 4096);
+
+        // ה-Header מתמלא בסגירה
+        if (format == PathStoreFormat.DIRECTORY_TREE) {
+            buffer.put(new byte[PathStoreFormat.HEADER_SIZE]);
+            offset = PathStoreFormat.HEADER_SIZE;
+        }
+    }
+
+    // הוספת נתיב - מחזיר את ה-docId שלו
+    synchronized int append(String path) throws IOException {
+        if (nextDocId == Integer.MAX_VALUE) {
+            throw new IOException("Too many documents for the docId range");
+        }
+        if (format == PathStoreFormat.DIRECTORY_TREE) {
+            return appendToTree(path);
+        }
+
+        int utfLength = encode(path);
+        int docId = nextDocId++;
+        writeOffset(offset);
+
+        writeByte(utfLength >>> 8);
+        writeByte(utfLength);
+        write(scratch, utfLength);
+        offset += 2 + utfLength;
+        return docId;
+    }
+
+    private int appendToTree(String path) throws IOException {
+        int split = lastSeparator(path);
+        int directoryId = split <= 0 ? -1 : directoryId(path.substring(0, split));
+        int utfLength = encode(split <= 0 ? path : path.substring(split));
+
+        int docId = nextDocId++;
+        if (docId % PathStoreFormat.BLOCK_SIZE == 0) {
+            writeOffset(offset);
+        }
+
+        offset += writeVInt(directoryId + 1);
+        offset += writeVInt(utfLength);
+        write(scratch, utfLength);
+        offset += utfLength;
+        return docId;
+    }
+
+    // מזהה התיקייה, תוך רישום שלה ושל התיקיות שמעליה בפעם הראשונה
+    private int directoryId(String directory) throws IOException {
+        Integer recent = recentDirectories.get(directory);
+        if (recent != null) {
+            return recent;
+        }
+
+        int split = lastSeparator(directory);
+        int parentId = split <= 0 ? -1 : directoryId(directory.substring(0, split));
+        String name = split <= 0 ? directory : directory.substring(split);
+
+        DirectoryKey key = new DirectoryKey(parentId, name);
+        Integer id = directories.get(key);
+        if (id == null) {
+            id = directories.size();
+            directories.put(key, id);
+
+            int utfLength = encode(name);
+            PostingsFormat.writeVInt(directoryTableOut, parentId + 1);
+            PostingsFormat.writeVInt(directoryTableOut, utfLength);
+            directoryTableOut.write(scratch, 0, utfLength);
+        }
+        recentDirectories.put(directory, id);
+        return id;
+    }
+
+    // המפריד האחרון בנתיב ('/' או '\') - הקטע שאחריו כולל את המפריד עצמו
+    private static int lastSeparator(String path) {
+        return Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+    }
+
+    // קידוד ל-scratch ב-UTF-8 מותאם - מחזיר את האורך
+    private int encode(String text) throws IOException {
+        int utfLength = UtfEncoder.getUTFLength(text);
+        if (utfLength > PathStoreFormat.MAX_UTF_LENGTH) {
+            throw new UTFDataFormatException("Path too long: " + utfLength + " bytes");
+        }
+        if (scratch.length < utfLength) {
+            scratch = Arrays.copyOf(scratch, Math.max(utfLength, scratch.length * 2));
+        }
+        UtfEncoder.encode(text, scratch, 0);
+        return utfLength;
+    }
+
+    private void writeOffset(long value) throws IOException {
+        if (!offsetsBuffer.hasRemaining()) {
+            drain(offsetsChannel, offsetsBuffer);
+        }
+        offsetsBuffer.putLong(value);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain(channel, buffer);
+        }
+        buffer.put((byte) value);
+    }
+
+    private int writeVInt(int value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            bytes++;
+        }
+        writeByte(value);
+        return bytes;
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (!buffer.hasRemaining()) {
+                drain(channel, buffer);
+            }
+            int chunk = Math.min(buffer.remaining(), length - written);
+            buffer.put(bytes, written, chunk);
+            written += chunk;
+        }
+    }
+
+    private static void drain(FileChannel target, ByteBuffer source) throws IOException {
+        source.flip();
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+        source.clear();
+    }
+
+    // טבלת התיקיות נכתבת אחרי כל המסמכים, ואז ה-Header מעודכן
+    private void finishTree() throws IOException {
+        long directoryTableOffset = offset;
+        writeVInt(directories.size());
+        write(directoryTable.array(), directoryTable.size());
+        drain(channel, buffer);
+
+        ByteBuffer header = ByteBuffer.allocate(PathStoreFormat.HEADER_SIZE);
+        header.putInt(0, PathStoreFormat.MAGIC);
+        header.putInt(PathStoreFormat.DOC_COUNT_OFFSET, nextDocId);
+        header.putLong(PathStoreFormat.DIRECTORY_TABLE_OFFSET, directoryTableOffset);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try (FileChannel paths = channel; FileChannel offsets = offsetsChannel) {
+            if (format == PathStoreFormat.DIRECTORY_TREE) {
+                finishTree();
+            }
+            drain(paths, buffer);
+            drain(offsets, offsetsBuffer);
+        }
+    }
+
+    private record DirectoryKey(int parentId, String name) {
+    }
+}
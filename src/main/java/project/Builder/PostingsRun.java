@@ -0,0 +1,151 @@
+package project.Builder;
+
+import project.Common.PostingsFormat;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// רשימת postings של מונח במערך int שטוח [docId, count, pos, ..., docId, count, pos, ...]
+// ממוינת לפי docId. המאגר גדל לפי הצורך ומשמש שוב לכל המונחים של הזרם.
+// הקידוד זהה לקובץ ה-Postings הסופי (ראה PostingsFormat), כך שרשימה מבלוק יחיד מועתקת כבתים
+class PostingsRun {
+    int[] data;
+    int length;
+    int numDocs;
+
+    PostingsRun() {
+        this.data = new int[64];
+    }
+
+    // עטיפה של מערך קיים (בלוק בזיכרון) ללא העתקה
+    PostingsRun(int[] data, int length, int numDocs) {
+        this.data = data;
+        this.length = length;
+        this.numDocs = numDocs;
+    }
+
+    void reset(int capacity) {
+        ensureCapacity(capacity);
+        length = 0;
+        numDocs = 0;
+    }
+
+    void ensureCapacity(int required) {
+        if (data.length < required) {
+            data = Arrays.copyOf(data, Math.max(required, data.length * 2));
+        }
+    }
+
+    // פותח מסמך חדש ומחזיר את מקום מונה המיקומים שלו
+    int startDocument(int docId) {
+        ensureCapacity(length + 2);
+        data[length] = docId;
+        data[length + 1] = 0;
+        numDocs++;
+        length += 2;
+        return length - 1;
+    }
+
+    void appendPositions(int countIndex, int[] source, int from, int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(source, from, data, length, count);
+        length += count;
+        data[countIndex] += count;
+    }
+
+    // כתיבה בפורמט הנתון - מחזיר את מספר הבתים שנכתבו
+    long encode(DataOutput out, short postingsVersion) throws IOException {
+        if (postingsVersion >= PostingsFormat.V2) {
+            return encodeCompressed(out);
+        }
+
+        // פורמט V1 זהה לפריסה שבזיכרון: docId, count ומיקומים כ-int
+        for (int i = 0; i < length; i++) {
+            out.writeInt(data[i]);
+        }
+        return 4L * length;
+    }
+
+    // פורמט V2: numDocs, ולכל מסמך הפרש docId, count והפרשי מיקומים - ב-VByte
+    private long encodeCompressed(DataOutput out) throws IOException {
+        long bytesWritten = PostingsFormat.writeVInt(out, numDocs);
+
+        int previousDocId = 0;
+        int i = 0;
+        while (i < length) {
+            int docId = data[i];
+            int count = data[i + 1];
+
+            bytesWritten += PostingsFormat.writeVInt(out, docId - previousDocId);
+            bytesWritten += PostingsFormat.writeVInt(out, count);
+            previousDocId = docId;
+
+            int previousPosition = 0;
+            int end = i + 2 + count;
+            for (i += 2; i < end; i++) {
+                bytesWritten += PostingsFormat.writeVInt(out, data[i] - previousPosition);
+                previousPosition = data[i];
+            }
+        }
+
+        return bytesWritten;
+    }
+
+    // פענוח רשימה שקודדה ב-encode מתוך מערך בתים
+    void decode(byte[] source, int from, int sourceLength, int docs, short postingsVersion) {
+        reset(0);
+        ByteCursor cursor = new ByteCursor(source, from);
+        int end = from + sourceLength;
+
+        if (postingsVersion >= PostingsFormat.V2) {
+            int encodedDocs = cursor.readVInt();
+            int docId = 0;
+            for (int d = 0; d < encodedDocs; d++) {
+                docId += cursor.readVInt();
+                int count = cursor.readVInt();
+                int countIndex = startDocument(docId);
+                ensureCapacity(length + count);
+                int position = 0;
+                for (int j = 0; j < count; j++) {
+                    position += cursor.readVInt();
+                    data[length++] = position;
+                }
+                data[countIndex] = count;
+            }
+        } else {
+            ensureCapacity(sourceLength / 4);
+            while (cursor.offset < end) {
+                data[length++] = cursor.readInt();
+            }
+            numDocs = docs;
+        }
+    }
+
+    private static class ByteCursor {
+        private final byte[] bytes;
+        private int offset;
+
+        ByteCursor(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+
+        int readVInt() {
+            byte b = bytes[offset++];
+            int value = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+
+        int readInt() {
+            int value = ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                    | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+            offset += 4;
+            return value;
+        }
+    }
+}
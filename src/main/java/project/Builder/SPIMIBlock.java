@@ -0,0 +1,248 @@
+package project.Builder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// בלוק SPIMI בזיכרון במבנה פרימיטיבי (ללא Integer/ArrayList/HashMap לכל מיקום):
+// מילון מונחים -> מזהה מונח ב-hash פתוח, ולכל מונח מערך int גדל בפורמט
+// [docId, count, pos, pos, ..., docId, count, pos, ...]
+// המונחים ממוינים רק בזמן הכתיבה לדיסק
+class SPIMIBlock {
+    private static final int INITIAL_TERMS = 64;
+    private static final int INITIAL_POSTINGS = 8;
+
+    // הערכת גודל אובייקטים ב-heap (64 ביט עם compressed oops)
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OBJECT = 24;
+    // לכל מזהה מונח: 2 הפניות (terms, postings) + 4 מערכי int
+    private static final int PER_TERM_SLOT = 2 * REFERENCE + 4 * 4;
+    // לכל תא ב-hash: הפניה למונח + מזהה
+    private static final int PER_HASH_SLOT = REFERENCE + 4;
+
+    // hash פתוח: מונח -> מזהה מונח
+    private String[] slotTerms;
+    private int[] slotIds;
+
+    // נתונים לפי מזהה מונח
+    private String[] terms;
+    private int[][] postings;
+    private int[] postingsLength;
+    private int[] lastDocId;
+    private int[] lastCountIndex;
+    private int[] docCounts;
+    private int termCount;
+
+    // גודל משוער של כל המבנה ב-heap, כולל כותרות אובייקטים ומקום שמור במערכים
+    private long retainedSize;
+
+    // עידן לחץ הזיכרון האחרון שהבלוק כבר הגיב אליו
+    private long pressureEpoch;
+
+    SPIMIBlock() {
+        reset();
+    }
+
+    void add(String term, int docId, int position) {
+        int termId = getOrAddTerm(term);
+
+        int length = postingsLength[termId];
+        if (length == 0 || lastDocId[termId] != docId) {
+            // מסמך חדש עבור המונח - docId ומונה מיקומים
+            int[] list = ensureCapacity(termId, length + 3);
+            list[length] = docId;
+            list[length + 1] = 0;
+            lastDocId[termId] = docId;
+            lastCountIndex[termId] = length + 1;
+            docCounts[termId]++;
+            length += 2;
+        }
+
+        int[] list = ensureCapacity(termId, length + 1);
+        list[length++] = position;
+        list[lastCountIndex[termId]]++;
+        postingsLength[termId] = length;
+    }
+
+    long getRetainedSize() {
+        return retainedSize;
+    }
+
+    long getPressureEpoch() {
+        return pressureEpoch;
+    }
+
+    void setPressureEpoch(long pressureEpoch) {
+        this.pressureEpoch = pressureEpoch;
+    }
+
+    boolean isEmpty() {
+        return termCount == 0;
+    }
+
+    // כתיבת הבלוק בסדר מונחים ממוין (ראה BlockFile), עם ה-postings של כל מונח בפורמט הסופי
+    void writeTo(BlockFile.Writer writer, short postingsVersion) throws IOException {
+        String[] sortedTerms = Arrays.copyOf(terms, termCount);
+        Arrays.sort(sortedTerms);
+        BlockFile.Buffer encoded = new BlockFile.Buffer();
+        DataOutputStream encoder = new DataOutputStream(encoded);
+
+        for (String term : sortedTerms) {
+            int termId = findTerm(term);
+            int[] list = postings[termId];
+            int length = postingsLength[termId];
+
+            if (!isSortedByDocId(list, length)) {
+                list = sortByDocId(list, length, docCounts[termId]);
+            }
+            encoded.reset();
+            new PostingsRun(list, length, docCounts[termId]).encode(encoder, postingsVersion);
+
+            writer.add(term, docCounts[termId], encoded.array(), 0, encoded.size());
+        }
+    }
+
+    // תהליכוני פירוק מקבלים מסמכים בסדר סיום החילוץ, ולכן ב-shard ה-docId כמעט תמיד עולה אבל לא מובטח.
+    // המיזוג מניח שכל רשימה בבלוק ממוינת לפי docId
+    private static boolean isSortedByDocId(int[] list, int length) {
+        int previousDocId = Integer.MIN_VALUE;
+        for (int i = 0; i < length; i += 2 + list[i + 1]) {
+            if (list[i] < previousDocId) {
+                return false;
+            }
+            previousDocId = list[i];
+        }
+        return true;
+    }
+
+    private static int[] sortByDocId(int[] list, int length, int numDocs) {
+        // מפתח מיון: docId בחצי העליון ותחילת הקבוצה ברשימה בחצי התחתון
+        long[] groups = new long[numDocs];
+        int g = 0;
+        for (int i = 0; i < length; i += 2 + list[i + 1]) {
+            groups[g++] = ((long) list[i] << 32) | i;
+        }
+        Arrays.sort(groups);
+
+        int[] sorted = new int[length];
+        int target = 0;
+        for (long group : groups) {
+            int start = (int) group;
+            int groupLength = 2 + list[start + 1];
+            System.arraycopy(list, start, sorted, target, groupLength);
+            target += groupLength;
+        }
+        return sorted;
+    }
+
+    // שחרור כל הזיכרון של הבלוק
+    void reset() {
+        slotTerms = new String[INITIAL_TERMS * 2];
+        slotIds = new int[INITIAL_TERMS * 2];
+        terms = new String[INITIAL_TERMS];
+        postings = new int[INITIAL_TERMS][];
+        postingsLength = new int[INITIAL_TERMS];
+        lastDocId = new int[INITIAL_TERMS];
+        lastCountIndex = new int[INITIAL_TERMS];
+        docCounts = new int[INITIAL_TERMS];
+        termCount = 0;
+        retainedSize = 6L * ARRAY_HEADER + (long) INITIAL_TERMS * PER_TERM_SLOT
+                + (long) slotTerms.length * PER_HASH_SLOT;
+    }
+
+    private int[] ensureCapacity(int termId, int required) {
+        int[] list = postings[termId];
+        if (list.length < required) {
+            int capacity = Math.max(required, list.length * 2);
+            retainedSize += 4L * (capacity - list.length);
+            list = Arrays.copyOf(list, capacity);
+            postings[termId] = list;
+        }
+        return list;
+    }
+
+    private int findTerm(String term) {
+        int mask = slotTerms.length - 1;
+        int slot = hash(term) & mask;
+        while (!term.equals(slotTerms[slot])) {
+            slot = (slot + 1) & mask;
+        }
+        return slotIds[slot];
+    }
+
+    private int getOrAddTerm(String term) {
+        int mask = slotTerms.length - 1;
+        int slot = hash(term) & mask;
+        String existing;
+        while ((existing = slotTerms[slot]) != null) {
+            if (existing.equals(term)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int termId = termCount++;
+        if (termId == terms.length) {
+            growTerms();
+        }
+        terms[termId] = term;
+        postings[termId] = new int[INITIAL_POSTINGS];
+        slotTerms[slot] = term;
+        slotIds[slot] = termId;
+        retainedSize += stringSize(term) + ARRAY_HEADER + 4L * INITIAL_POSTINGS;
+
+        // שמירה על מקדם עומס של חצי לכל היותר
+        if (termCount * 2 > slotTerms.length) {
+            rehash();
+        }
+        return termId;
+    }
+
+    private void growTerms() {
+        int capacity = terms.length * 2;
+        retainedSize += (long) (capacity - terms.length) * PER_TERM_SLOT;
+        terms = Arrays.copyOf(terms, capacity);
+        postings = Arrays.copyOf(postings, capacity);
+        postingsLength = Arrays.copyOf(postingsLength, capacity);
+        lastDocId = Arrays.copyOf(lastDocId, capacity);
+        lastCountIndex = Arrays.copyOf(lastCountIndex, capacity);
+        docCounts = Arrays.copyOf(docCounts, capacity);
+    }
+
+    private void rehash() {
+        String[] newTerms = new String[slotTerms.length * 2];
+        int[] newIds = new int[newTerms.length];
+        int mask = newTerms.length - 1;
+        retainedSize += (long) (newTerms.length - slotTerms.length) * PER_HASH_SLOT;
+
+        for (int termId = 0; termId < termCount; termId++) {
+            int slot = hash(terms[termId]) & mask;
+            while (newTerms[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            newTerms[slot] = terms[termId];
+            newIds[slot] = termId;
+        }
+
+        slotTerms = newTerms;
+        slotIds = newIds;
+    }
+
+    // String עם מערך bytes פנימי: תו אחד לבית (Latin-1) או שניים (UTF-16)
+    private static long stringSize(String term) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_OBJECT + ARRAY_HEADER + (long) term.length() * bytesPerChar;
+    }
+
+    private static int hash(String term) {
+        int h = term.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
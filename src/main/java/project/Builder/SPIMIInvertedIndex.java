@@ -1,482 +1,544 @@
 package project.Builder;
 
 import project.Common.Config;
+import project.Common.PostingsFormat;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-
-import static project.Builder.UtfEncoder.getUTFLength;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class SPIMIInvertedIndex {
+    private static final int MIN_READ_BUFFER = 8 * 1024;
+    private static final int MAX_READ_BUFFER = 4 * 1024 * 1024;
+
     private Config config;
 
-    private Map<String, Map<Integer, List<Integer>>> tempIndex;
-    private int blockCounter;
+    // בלוק זיכרון פרטי לכל תהליכון מכניס (shard) - הכנסה ללא נעילות
+    private final List<SPIMIBlock> shards = Collections.synchronizedList(new ArrayList<>());
+    private volatile ThreadLocal<SPIMIBlock> localBlock;
+    private final AtomicInteger blockCounter;
+    // אינדקס דליל לכל בלוק שנכתב (לפי מספר הבלוק) - לחלוקת המיזוג לטווחים
+    private final Map<Integer, BlockSparseIndex> blockIndexes = new ConcurrentHashMap<>();
+    // נתיב כל בלוק שנכתב - הבלוקים מפוזרים בין התיקיות הזמניות
+    private final Map<Integer, String> blockPaths = new ConcurrentHashMap<>();
     private final long maxMemorySize;
-    private long currentMemoryUsage;
-
-    private File tempDir;
+    private final HeapPressureMonitor heapMonitor;
+    // הרשאות I/O למיזוג - משותפות בין אינדקס השמות לאינדקס התוכן כשהם ממוזגים במקביל
+    private final Semaphore mergeIoPermits;
+    private final long mergeBufferBudget;
+
+    // כתיבה אסינכרונית של בלוקים מלאים: עד flushInFlight בלוקים בדרך לדיסק בזמן שהאינדוקס ממשיך
+    private final int flushInFlight;
+    private final Semaphore flushPermits;
+    private ExecutorService flushPool;
+    private volatile IOException flushFailure;
+
+    // תיקיות זמניות (רצוי על דיסקים נפרדים) שביניהן מפוזרים קבצי הבלוקים
+    private final List<File> tempDirs = new ArrayList<>();
+    private final boolean stripeByFreeSpace;
+    // תהליכון קריאה מוקדמת לכל תיקייה זמנית בזמן המיזוג
+    private final Map<String, ExecutorService> readAheadPools = new HashMap<>();
+    private final short postingsVersion;
     private String postingsFile;
     private String bPlusTreeFile;
 
-    private int currentPageId = 0;
-    private int currentTreeHeight = 0;
-
 
     public SPIMIInvertedIndex(String type) {
-        this.config = Config.getInstance();
-        this.tempIndex = new TreeMap<>();
-        this.blockCounter = 0;
-        this.maxMemorySize = config.getMaxMemory(type);
-        this.currentMemoryUsage = 0;
-
-        // יצירת התיקייה הזמנית אם לא קיימת
-        this.tempDir = new File(config.getTempDir(type));
+        this(type, new Semaphore(Config.getInstance().getMergeIoConcurrency()));
+    }
 
+    public SPIMIInvertedIndex(String type, Semaphore mergeIoPermits) {
+        this.config = Config.getInstance();
+        this.mergeIoPermits = mergeIoPermits;
+        this.mergeBufferBudget = config.getMergeBufferBudget(type);
+        this.blockCounter = new AtomicInteger(0);
+
+        // תקציב הזיכרון (נגזר גם מה-Xmx) מתחלק בין כל ה-shards ובין הבלוקים שבדרך לדיסק
+        this.flushInFlight = config.getFlushInFlight();
+        this.flushPermits = new Semaphore(flushInFlight);
+        this.maxMemorySize = config.getMemoryBudget(type) / (config.getIndexShards() + flushInFlight);
+        this.heapMonitor = HeapPressureMonitor.getInstance();
+        this.localBlock = newLocalBlock();
+
+        for (String dir : config.getTempDirs(type)) {
+            this.tempDirs.add(new File(dir));
+        }
+        this.stripeByFreeSpace = config.isTempStripedByFreeSpace();
 
+        this.postingsVersion = config.getPostingsVersion();
         this.postingsFile = config.getPostingsFile(type);
         this.bPlusTreeFile = config.getBPlusTreeFile(type);
     }
 
-     // מוסיף מונח לאינדקס הזמני
+    private ThreadLocal<SPIMIBlock> newLocalBlock() {
+        return ThreadLocal.withInitial(() -> {
+            SPIMIBlock block = new SPIMIBlock();
+            shards.add(block);
+            return block;
+        });
+    }
+
+     // מוסיף מונח לאינדקס הזמני של התהליכון הנוכחי
     public void addToTempIndex(String term, int docId, int position) {
         if (term == null || term.isEmpty() || term.length() > 255){
             return;
         }
-        Map<Integer, List<Integer>> postings = tempIndex.get(term);
+        SPIMIBlock block = localBlock.get();
+        block.add(term, docId, position);
 
-        if (postings == null) {
-            postings = new HashMap<>();
-            tempIndex.put(term, postings);
-            currentMemoryUsage += 2 + getUTFLength(term);
+        if (block.getRetainedSize() >= maxMemorySize || shouldFlushUnderPressure(block)) {
+            if (flushInFlight > 0) {
+                flushAsync(block);
+            } else {
+                checkFlushFailure();
+                writeBlockToDisk(block);
+            }
         }
+    }
 
-        List<Integer> positions = postings.get(docId);
-        if (positions == null) {
-            positions = new ArrayList<>();
-            postings.put(docId, positions);
-            currentMemoryUsage += 8;
-        }
+    // מסירת הבלוק המלא לתהליכון הכתיבה והמשך ההכנסה לבלוק חדש.
+    // מספר הבלוק נקבע כאן, כך שסדר הבלוקים של כל shard נשמר גם כשהכתיבה מקבילית
+    private void flushAsync(SPIMIBlock block) {
+        checkFlushFailure();
+        flushPermits.acquireUninterruptibly();
 
-        positions.add(position);
-        currentMemoryUsage += 4;
+        SPIMIBlock fresh = new SPIMIBlock();
+        fresh.setPressureEpoch(block.getPressureEpoch());
+        shards.remove(block);
+        shards.add(fresh);
+        localBlock.set(fresh);
 
-        if (currentMemoryUsage >= maxMemorySize) {
-            writeBlockToDisk();
+        int blockId = blockCounter.getAndIncrement();
+        try {
+            flushPool().execute(() -> {
+                try {
+                    writeBlockFile(blockId, block);
+                } catch (IOException e) {
+                    if (flushFailure == null) {
+                        flushFailure = e;
+                    }
+                } finally {
+                    flushPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushPermits.release();
+            throw e;
         }
     }
 
-     //כותב את הבלוק הנוכחי לדיסק ומנקה את הזיכרון
-    public void writeBlockToDisk() {
+    private synchronized ExecutorService flushPool() {
+        if (flushPool == null) {
+            flushPool = Executors.newFixedThreadPool(flushInFlight, runnable -> {
+                Thread thread = new Thread(runnable, "spimi-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return flushPool;
+    }
 
-        if (tempIndex.isEmpty()) {
-            return;
+    // המתנה לכל הבלוקים שבדרך לדיסק
+    private void awaitFlushes() {
+        flushPermits.acquireUninterruptibly(flushInFlight);
+        flushPermits.release(flushInFlight);
+        synchronized (this) {
+            if (flushPool != null) {
+                flushPool.shutdown();
+                flushPool = null;
+            }
         }
+    }
 
-        if (!this.tempDir.exists()) {
-            this.tempDir.mkdirs();
+    // כשל בכתיבת בלוק (ברקע או בכתיבה ישירה) עוצר את האינדוקס בכתיבה הבאה
+    private void checkFlushFailure() {
+        IOException failure = flushFailure;
+        if (failure != null) {
+            throw new UncheckedIOException("Failed to flush SPIMI block", failure);
         }
+    }
 
-        String fileName = tempDir + File.separator + "block_" + blockCounter + ".bin";
+    // אחרי התראת לחץ זיכרון כל בלוק משמעותי נכתב לדיסק פעם אחת
+    private boolean shouldFlushUnderPressure(SPIMIBlock block) {
+        long epoch = heapMonitor.getPressureEpoch();
+        if (epoch == block.getPressureEpoch()) {
+            return false;
+        }
+        block.setPressureEpoch(epoch);
+        return block.getRetainedSize() >= maxMemorySize / 16;
+    }
 
-        try (DataOutputStream dos = new DataOutputStream(
-                new BufferedOutputStream(new FileOutputStream(fileName), config.getBufferSize()))) {
+     //כותב את כל הבלוקים שבזיכרון לדיסק ומנקה את הזיכרון
+    public void writeBlockToDisk() {
+        synchronized (shards) {
+            for (SPIMIBlock block : shards) {
+                writeBlockToDisk(block);
+            }
+        }
+    }
 
-            for (Map.Entry<String, Map<Integer, List<Integer>>> termEntry : tempIndex.entrySet()) {
-                String term = termEntry.getKey();
-                Map<Integer, List<Integer>> postings = termEntry.getValue();
+    // כתיבת בלוק לקובץ block_N.bin משלו. כשל נרשם ב-flushFailure כמו בכתיבה ברקע,
+    // כך שבלוק שנכתב חלקית לא ימוזג כאילו הוא שלם
+    private void writeBlockToDisk(SPIMIBlock block) {
+        if (block.isEmpty()) {
+            return;
+        }
 
-                dos.writeUTF(term);
-                dos.writeInt(postings.size());
+        int blockId = blockCounter.getAndIncrement();
+        try {
+            writeBlockFile(blockId, block);
+        } catch (IOException e) {
+            System.err.println("שגיאה בכתיבת הבלוק לדיסק: " + e.getMessage());
+            if (flushFailure == null) {
+                flushFailure = e;
+            }
+        }
 
-                for (Map.Entry<Integer, List<Integer>> docEntry : postings.entrySet()) {
-                    int docId = docEntry.getKey();
-                    List<Integer> positions = docEntry.getValue();
+        block.reset();
+    }
 
-                    dos.writeInt(docId);
-                    dos.writeInt(positions.size());
+    private void writeBlockFile(int blockId, SPIMIBlock block) throws IOException {
+        String fileName = tempDirFor(blockId) + File.separator + "block_" + blockId + ".bin";
+        BlockSparseIndex sparseIndex = new BlockSparseIndex();
+        try (BlockFile.Writer writer = new BlockFile.Writer(new File(fileName),
+                config.getBufferSize(), config.isTempCompressed(), sparseIndex)) {
 
-                    for (int position : positions) {
-                        dos.writeInt(position);
-                    }
+            block.writeTo(writer, postingsVersion);
+        } finally {
+            blockPaths.put(blockId, fileName);
+            blockIndexes.put(blockId, sparseIndex);
+        }
+    }
+
+    // התיקייה הזמנית לקובץ חדש: לפי הסדר (round-robin) או זו עם הכי הרבה מקום פנוי
+    private File tempDirFor(int index) {
+        File dir = tempDirs.get(index % tempDirs.size());
+        if (stripeByFreeSpace) {
+            long bestSpace = -1;
+            for (File candidate : tempDirs) {
+                candidate.mkdirs();
+                long space = candidate.getUsableSpace();
+                if (space > bestSpace) {
+                    bestSpace = space;
+                    dir = candidate;
                 }
             }
-
-            blockCounter++;
-
-        } catch (IOException e) {
-            System.err.println("שגיאה בכתיבת הבלוק לדיסק: " + e.getMessage());
-            e.printStackTrace();
         }
-
-        tempIndex.clear();
-        currentMemoryUsage = 0;
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
     }
 
 
      // ממזג את כל הבלוקים ובונה B+ Tree
      public void mergeBlocks() {
-        // כתיבת הבלוק האחרון אם יש תוכן
+        // כתיבת הבלוקים האחרונים של כל ה-shards אם יש תוכן, וסיום הכתיבות שברקע
         writeBlockToDisk();
+        awaitFlushes();
+        IOException failure = flushFailure;
+        flushFailure = null;
+        if (failure != null) {
+            for (String blockFile : blockPaths.values()) {
+                new File(blockFile).delete();
+            }
+            resetBlocks();
+            throw new UncheckedIOException("Failed to flush SPIMI block", failure);
+        }
+        int blockCount = blockCounter.get();
+
+        List<String> blockFiles = new ArrayList<>();
+        List<BlockSparseIndex> sparseIndexes = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            if (blockPaths.containsKey(i)) {
+                blockFiles.add(blockPaths.get(i));
+                sparseIndexes.add(blockIndexes.get(i));
+            }
+        }
 
-
-        // PriorityQueue לאופטימיזציה של המיזוג
-        PriorityQueue<TermStream> termQueue = new PriorityQueue<>(
-                (s1, s2) -> s1.currentTerm.compareTo(s2.currentTerm)
-        );
+        if (config.isMergeReadAhead()) {
+            for (File dir : tempDirs) {
+                readAheadPools.computeIfAbsent(dir.getPath(), path -> Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "spimi-read-ahead");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+            }
+        }
 
         try {
-            // פתיחת כל הבלוקים לקריאה והכנסה ל-PriorityQueue
-            for (int i = 0; i < blockCounter; i++) {
-                String fileName = tempDir + File.separator + "block_" + i + ".bin";
-                DataInputStream dis = new DataInputStream(
-                        new BufferedInputStream(new FileInputStream(fileName)));
-
-                TermStream stream = readNextTerm(fileName, dis);
-                if (stream != null) {
-                    termQueue.offer(stream);
-                }
-            }
+            reduceFanIn(blockFiles, sparseIndexes);
 
-            // מיזוג ובניית B+ Tree ישירות - שני קבצים במקביל
-            buildTreeAndPostingLists(termQueue);
+            // חלוקת מרחב המונחים לטווחים בגודל דומה לפי הדגימות שנרשמו בכתיבת הבלוקים
+            List<String> splitPoints = BlockSparseIndex.splitPoints(sparseIndexes, config.getMergeThreads());
+
+            if (splitPoints.isEmpty()) {
+                buildTreeAndPostingLists(blockFiles, sparseIndexes);
+            } else {
+                buildTreeAndPostingListsInRanges(blockFiles, sparseIndexes, splitPoints);
+            }
 
             // מחיקת קבצי הבלוקים הזמניים
-            for (int i = 0; i < blockCounter; i++) {
-                File blockFile = new File(tempDir + File.separator + "block_" + i + ".bin");
-                blockFile.delete();
+            for (String blockFile : blockFiles) {
+                new File(blockFile).delete();
             }
 
-            if (tempDir.isDirectory() && Objects.requireNonNull(tempDir.list()).length == 0) {
-                tempDir.delete();
+            for (File tempDir : tempDirs) {
+                if (tempDir.isDirectory() && Objects.requireNonNull(tempDir.list()).length == 0) {
+                    tempDir.delete();
+                }
             }
 
         } catch (IOException e) {
             System.err.println("שגיאה במיזוג הבלוקים: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            for (ExecutorService pool : readAheadPools.values()) {
+                pool.shutdownNow();
+            }
+            readAheadPools.clear();
         }
+
+        resetBlocks();
     }
 
-    //בניית B+ Tree ו-Postings במקביל
-    private void buildTreeAndPostingLists(PriorityQueue<TermStream> termQueue) throws IOException {
+    // איפוס לקראת בנייה הבאה
+    private void resetBlocks() {
+        shards.clear();
+        localBlock = newLocalBlock();
+        blockCounter.set(0);
+        blockIndexes.clear();
+        blockPaths.clear();
+    }
 
+    //בניית B+ Tree ו-Postings במקביל - מיזוג אחד ישירות לקבצים הסופיים
+    private void buildTreeAndPostingLists(List<String> blockFiles, List<BlockSparseIndex> sparseIndexes) throws IOException {
+        acquireIoPermit();
         try (DataOutputStream postingsOutput = new DataOutputStream(
                 new BufferedOutputStream(new FileOutputStream(this.postingsFile), config.getBufferSize()));
-             DataOutputStream treeOutput = new DataOutputStream(
-                     new BufferedOutputStream(new FileOutputStream(this.bPlusTreeFile), config.getBufferSize()))) {
-
-            // שלב 1: כתיבת Header זמני עם placeholder
-            writeTemporaryTreeHeader(treeOutput);
+             BPlusTreeBulkLoader treeLoader = new BPlusTreeBulkLoader(this.bPlusTreeFile, postingsVersion)) {
 
-            // שלב 2: מיזוג + כתיבת Leaf Pages ישירות עם PriorityQueue
-            List<LeafPageInfo> leafInfos = mergeAndWriteLeafPages(termQueue, postingsOutput, treeOutput);
+            // שלב 1: מיזוג + כתיבת Leaf Pages בזרימה עם PriorityQueue
+            new BlockRangeMerger(blockFiles, sparseIndexes, null, null, postingsVersion,
+                    readBufferSize(blockFiles.size(), 1), readAhead())
+                    .merge(postingsOutput, treeLoader::addLeafEntry);
 
-            // שלב 3: כתיבת Internal Pages עם buffer ובדיקת מקום מתוקנת
-            int rootPageId = writeInternalLevels(treeOutput, leafInfos);
-
-            // שלב 4: סגירת ה-buffer streams
-            treeOutput.close();
-
-            // שלב 5: עדכון Header עם RandomAccessFile
-            updateTreeHeader(rootPageId, currentPageId, currentTreeHeight);
+            // שלב 2: כתיבת Internal Pages ועדכון ה-Header
+            treeLoader.finish();
 
             System.out.println("B+ Tree ו-Postings נבנו במקביל עם PriorityQueue.");
+        } finally {
+            mergeIoPermits.release();
         }
     }
 
+    // מיזוג מקבילי: כל טווח מונחים ממוזג בתהליכון משלו לקטע postings ולרצף רשומות עלים זמניים,
+    // ואחר כך הקטעים משורשרים לקובץ ה-postings והרשומות נארזות לעלים תחת רמות פנימיות משותפות
+    private void buildTreeAndPostingListsInRanges(List<String> blockFiles, List<BlockSparseIndex> sparseIndexes,
+                                                  List<String> splitPoints) throws IOException {
+        int ranges = splitPoints.size() + 1;
+        ExecutorService mergePool = newMergePool(ranges);
 
-     // מיזוג המונחים וכתיבת Leaf Pages
-    private List<LeafPageInfo> mergeAndWriteLeafPages(PriorityQueue<TermStream> termQueue,
-                                                               DataOutputStream postingsOutput,
-                                                               DataOutputStream treeOutput) throws IOException {
-        List<LeafPageInfo> leafInfos = new ArrayList<>();
-        long currentPostingsOffset = 0;
-        currentPageId = 0;
-        currentTreeHeight = 1;
-
-        // יצירת עמוד Leaf ראשון
-        BPlusTreeLeafPage currentLeafPage = new BPlusTreeLeafPage(currentPageId);
-        String firstKeyInPage = null;
-
-        while (!termQueue.isEmpty()) {
-            // הוצאת המונח הקטן ביותר
-            TermStream currentStream = termQueue.poll();
-            String currentTerm = currentStream.currentTerm;
-            Map<Integer, List<Integer>> mergedPostings = new HashMap<>(currentStream.currentPostings);
-
-            // איסוף כל הזרמים נוספים עם אותו מונח
-            List<TermStream> sameTermStreams = new ArrayList<>();
-            while (!termQueue.isEmpty() && termQueue.peek().currentTerm.equals(currentTerm)) {
-                TermStream sameTermStream = termQueue.poll();
-                mergePostings(mergedPostings, sameTermStream.currentPostings);
-                sameTermStreams.add(sameTermStream);
+        int[] termCounts = new int[ranges];
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int r = 0; r < ranges; r++) {
+                String lowerBound = r == 0 ? null : splitPoints.get(r - 1);
+                String upperBound = r == ranges - 1 ? null : splitPoints.get(r);
+                int range = r;
+                results.add(mergePool.submit(() -> mergeRange(blockFiles, sparseIndexes, lowerBound, upperBound, range, ranges)));
             }
 
-            // קריאת המונח הבא מכל הזרמים שעובדו והחזרה ל-queue
-            TermStream nextTerm = readNextTerm(currentStream.fileName, currentStream.inputStream);
-            if (nextTerm != null) {
-                termQueue.offer(nextTerm);
-            } else {
-                // סיום הזרם
-                currentStream.inputStream.close();
+            for (int r = 0; r < ranges; r++) {
+                termCounts[r] = awaitMerge(results.get(r));
             }
+        } finally {
+            mergePool.shutdownNow();
+        }
 
-            for (TermStream sameStream : sameTermStreams) {
-                TermStream nextSameTerm = readNextTerm(sameStream.fileName, sameStream.inputStream);
-                if (nextSameTerm != null) {
-                    termQueue.offer(nextSameTerm);
-                } else {
-                    // סיום הזרם
-                    sameStream.inputStream.close();
+        // שרשור הקטעים ובניית העץ מרשומות העלים עם offsets מוחלטים
+        acquireIoPermit();
+        try (FileChannel postingsChannel = FileChannel.open(Path.of(this.postingsFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BPlusTreeBulkLoader treeLoader = new BPlusTreeBulkLoader(this.bPlusTreeFile, postingsVersion)) {
+
+            for (int r = 0; r < ranges; r++) {
+                long baseOffset = postingsChannel.position();
+                File segmentFile = new File(rangeFileName("postings", r));
+                File entriesFile = new File(rangeFileName("entries", r));
+
+                try (FileChannel segment = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ)) {
+                    long size = segment.size();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        transferred += segment.transferTo(transferred, size - transferred, postingsChannel);
+                    }
                 }
-            }
-
-            // כתיבת ה-postings לקובץ
-            long nextOffset = writePostingsToFile(postingsOutput, mergedPostings, currentPostingsOffset);
-
-            // יצירת IndexEntry עבור B+ Tree
-            IndexEntry entry = new IndexEntry(currentTerm, mergedPostings.size(), currentPostingsOffset);
 
-            // בדיקה אם העמוד הנוכחי יכול להכיל את המונח
-            if (!currentLeafPage.canFit(entry)) {
-                if (currentPageId + 1 < Integer.MAX_VALUE) {
-                    currentLeafPage.setNextPageId(currentPageId + 1);
+                try (DataInputStream entries = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(entriesFile), config.getBufferSize()))) {
+                    for (int i = 0; i < termCounts[r]; i++) {
+                        String term = entries.readUTF();
+                        int numDocs = entries.readInt();
+                        long offset = entries.readLong();
+                        treeLoader.addLeafEntry(term, numDocs, baseOffset + offset);
+                    }
                 }
 
-                treeOutput.write(currentLeafPage.serialize());
-                leafInfos.add(new LeafPageInfo(currentPageId, firstKeyInPage));
-
-                // יצירת עמוד חדש
-                currentPageId++;
-                currentLeafPage = new BPlusTreeLeafPage(currentPageId);
-                firstKeyInPage = currentTerm;
-            }
-
-            if (firstKeyInPage == null) {
-                firstKeyInPage = currentTerm;
+                segmentFile.delete();
+                entriesFile.delete();
             }
 
-            // הוספת המונח לעמוד הנוכחי
-            currentLeafPage.addEntry(entry);
+            treeLoader.finish();
 
-            currentPostingsOffset = nextOffset;
+            System.out.println("B+ Tree ו-Postings נבנו במיזוג מקבילי של " + ranges + " טווחים.");
+        } finally {
+            mergeIoPermits.release();
         }
-
-        // כתיבת העמוד האחרון
-        if (!currentLeafPage.isEmpty()) {
-            treeOutput.write(currentLeafPage.serialize());
-            leafInfos.add(new LeafPageInfo(currentPageId, firstKeyInPage));
-            currentPageId++;
-        }
-
-        return leafInfos;
     }
 
-
-    //  ממזג postings מזרם מקור לזרם יעד
-    private void mergePostings(Map<Integer, List<Integer>> target, Map<Integer, List<Integer>> source) {
-        for (Map.Entry<Integer, List<Integer>> entry : source.entrySet()) {
-            int docId = entry.getKey();
-
-            List<Integer> sourcePositions = entry.getValue();
-
-            List<Integer> targetPositions = target.get(docId);
-            if (targetPositions == null) {
-                targetPositions = new ArrayList<>(sourcePositions);
-                target.put(docId, targetPositions);
-            } else {
-                targetPositions.addAll(sourcePositions);
-                Collections.sort(targetPositions);
-            }
+    private int mergeRange(List<String> blockFiles, List<BlockSparseIndex> sparseIndexes,
+                           String lowerBound, String upperBound, int range, int ranges) throws IOException {
+        BlockRangeMerger merger = new BlockRangeMerger(blockFiles, sparseIndexes, lowerBound, upperBound,
+                postingsVersion, readBufferSize(blockFiles.size(), ranges), readAhead());
+
+        acquireIoPermit();
+        try (DataOutputStream segment = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(rangeFileName("postings", range)), config.getBufferSize()));
+             DataOutputStream entries = new DataOutputStream(new BufferedOutputStream(
+                     new FileOutputStream(rangeFileName("entries", range)), config.getBufferSize()))) {
+
+            return merger.merge(segment, (term, numDocs, postingsOffset) -> {
+                entries.writeUTF(term);
+                entries.writeInt(numDocs);
+                entries.writeLong(postingsOffset);
+            });
+        } finally {
+            mergeIoPermits.release();
         }
     }
 
-
-
-    // קורא את המונח הבא מזרם נתון
-    private TermStream readNextTerm(String fileName, DataInputStream dis) {
+    private void acquireIoPermit() throws IOException {
         try {
-            if (dis.available() > 0) {
-                String term = dis.readUTF();
-                int numDocs = dis.readInt();
-
-                Map<Integer, List<Integer>> postings = new HashMap<>();
-
-                for (int i = 0; i < numDocs; i++) {
-                    int docId = dis.readInt();
-                    int numPositions = dis.readInt();
-
-                    List<Integer> positions = new ArrayList<>();
-                    for (int j = 0; j < numPositions; j++) {
-                        positions.add(dis.readInt());
-                    }
-
-                    postings.put(docId, positions);
-                }
-
-                return new TermStream(fileName, dis, term, postings);
-            }
-        } catch (IOException e) {
-            System.out.println("שגיאה בקריאת המונח הבא מזרם הנתונים: " + e.getMessage());
+            mergeIoPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Merge interrupted", e);
         }
-
-        return null;
     }
 
+    // גודל מאגר הקריאה לכל זרם בלוק: תקציב המיזוג של האינדקס מתחלק בין כל הזרמים
+    // הפתוחים בכל הטווחים (0 = buffer.size הכללי)
+    private int readBufferSize(int blocks, int ranges) {
+        if (mergeBufferBudget <= 0) {
+            return config.getBufferSize();
+        }
+        long perStream = mergeBufferBudget / Math.max(1L, (long) blocks * ranges);
+        return (int) Math.max(MIN_READ_BUFFER, Math.min(perStream, MAX_READ_BUFFER));
+    }
 
+    // מיזוג מקדים בקבוצות של עד merge.max.fanin בלוקים סמוכים (שומר על סדר הבלוקים ולכן על סדר ה-docId)
+    // לקבצי ביניים באותו פורמט, עד שהמיזוג הסופי פותח לכל היותר fanIn קבצים בכל טווח -
+    // מספר מתארי הקבצים ומאגרי הקריאה חסום בכל גודל קורפוס
+    private void reduceFanIn(List<String> blockFiles, List<BlockSparseIndex> sparseIndexes) throws IOException {
+        int fanIn = config.getMergeFanIn();
+        for (int pass = 0; blockFiles.size() > fanIn; pass++) {
+            int groups = (blockFiles.size() + fanIn - 1) / fanIn;
+            int parallel = Math.min(groups, config.getMergeThreads());
+            ExecutorService mergePool = newMergePool(parallel);
+
+            List<String> runFiles = new ArrayList<>();
+            List<BlockSparseIndex> runIndexes = new ArrayList<>();
+            try {
+                List<Future<BlockSparseIndex>> results = new ArrayList<>();
+                for (int g = 0; g < groups; g++) {
+                    int from = g * fanIn;
+                    int to = Math.min(from + fanIn, blockFiles.size());
+                    List<String> groupFiles = new ArrayList<>(blockFiles.subList(from, to));
+                    List<BlockSparseIndex> groupIndexes = new ArrayList<>(sparseIndexes.subList(from, to));
+                    String runFile = runFileName(pass, g);
+                    runFiles.add(runFile);
+                    results.add(mergePool.submit(() -> mergeRun(groupFiles, groupIndexes, runFile, parallel)));
+                }
 
-    // כתיבת Internal Levels
-    private int writeInternalLevels(DataOutputStream treeOutput, List<LeafPageInfo> leafInfos) throws IOException {
-        List<LeafPageInfo> currentLevel = leafInfos;
-
-        while (currentLevel.size() > 1) {
-            List<LeafPageInfo> parentLevel = new ArrayList<>();
-            currentTreeHeight++;
-
-            // יצירת עמוד Internal ראשון
-            BPlusTreeInternalPage currentInternalPage = new BPlusTreeInternalPage(currentPageId);
-            String firstKeyInPage = null;
-
-            for (int i = 0; i < currentLevel.size(); i++) {
-                LeafPageInfo child = currentLevel.get(i);
-
-                if (i == 0) {
-                    // הילד הראשון - אין צורך במפתח מפריד
-                    currentInternalPage.addFirstChild(child.pageId);
-                    firstKeyInPage = child.firstKey;
-                } else {
-                    // בדיקה אם יש מקום להוסיף ילד נוסף
-                    if (!currentInternalPage.canFit(child.firstKey)) {
-                        // העמוד מלא - כתיבה לקובץ
-                        treeOutput.write(currentInternalPage.serialize());
-                        parentLevel.add(new LeafPageInfo(currentPageId, firstKeyInPage));
-
-                        // יצירת עמוד חדש
-                        currentPageId++;
-                        currentInternalPage = new BPlusTreeInternalPage(currentPageId);
-                        currentInternalPage.addFirstChild(child.pageId);
-                        firstKeyInPage = child.firstKey;
-                    } else {
-                        // יש מקום - הוספת הילד
-                        currentInternalPage.addChild(child.firstKey, child.pageId);
-                    }
+                for (Future<BlockSparseIndex> result : results) {
+                    runIndexes.add(awaitMerge(result));
                 }
+            } finally {
+                mergePool.shutdownNow();
             }
 
-            // כתיבת העמוד האחרון
-            if (!currentInternalPage.isEmpty()) {
-                treeOutput.write(currentInternalPage.serialize());
-                parentLevel.add(new LeafPageInfo(currentPageId, firstKeyInPage));
-                currentPageId++;
+            for (String blockFile : blockFiles) {
+                new File(blockFile).delete();
             }
-
-            currentLevel = parentLevel;
+            blockFiles.clear();
+            blockFiles.addAll(runFiles);
+            sparseIndexes.clear();
+            sparseIndexes.addAll(runIndexes);
         }
-
-        return currentLevel.get(0).pageId;
     }
 
-
-
-    private void writeTemporaryTreeHeader(DataOutputStream treeOutput) throws IOException {
-        // Magic number: BPT1 (4 bytes)
-        treeOutput.write('B');
-        treeOutput.write('P');
-        treeOutput.write('T');
-        treeOutput.write('1');
-
-        // Version: 1 (2 byte)
-        treeOutput.writeShort(1);
-
-        // Page size: 8KB (4 bytes)
-        treeOutput.writeInt(config.getPageSize());
-
-        // Root page ID: placeholder (4 bytes)
-        treeOutput.writeInt(-1);
-
-        // Total pages: placeholder (4 bytes)
-        treeOutput.writeInt(-1);
-
-        // Tree height: placeholder (2 bytes)
-        treeOutput.writeShort(-1);
-
-
-
-        // Padding to reach 32 bytes total
-        int remainingBytes = 32 - (4 + 2 + 4 + 4 + 4 + 2);
-        for (int i = 0; i < remainingBytes; i++) {
-            treeOutput.writeByte(0);
+    private BlockSparseIndex mergeRun(List<String> groupFiles, List<BlockSparseIndex> groupIndexes,
+                                      String runFile, int parallel) throws IOException {
+        BlockSparseIndex runIndex = new BlockSparseIndex();
+        BlockRangeMerger merger = new BlockRangeMerger(groupFiles, groupIndexes, null, null,
+                postingsVersion, readBufferSize(groupFiles.size(), parallel), readAhead());
+
+        acquireIoPermit();
+        try (BlockFile.Writer writer = new BlockFile.Writer(new File(runFile), config.getBufferSize(),
+                config.isTempCompressed(), runIndex)) {
+            merger.merge(writer::add);
+        } finally {
+            mergeIoPermits.release();
         }
+        return runIndex;
     }
 
-    // כותב postings לקובץ נפרד ומחזיר את ה-offset הבא
-    private long writePostingsToFile(DataOutputStream postingsOutput,
-                                     Map<Integer, List<Integer>> postings,
-                                     long currentOffset) throws IOException {
-        long bytesWritten = currentOffset;
-
-        List<Integer> sortedDocIds = new ArrayList<>(postings.keySet());
-        Collections.sort(sortedDocIds);
-
-        for (int docId : sortedDocIds) {
-            List<Integer> positions = postings.get(docId);
-
-            postingsOutput.writeInt(docId);
-            bytesWritten += 4;
-
-            postingsOutput.writeInt(positions.size());
-            bytesWritten += 4;
+    private static ExecutorService newMergePool(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "spimi-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-            Collections.sort(positions);
-            for (int position : positions) {
-                postingsOutput.writeInt(position);
-                bytesWritten += 4;
+    private static <T> T awaitMerge(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Merge interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
+            throw new IOException("Merge failed", e.getCause());
         }
-
-        return bytesWritten;
     }
 
-    // עדכון של הכותרת
-     private void updateTreeHeader(int rootPageId, int totalPages, int treeHeight) throws IOException {
-        try (RandomAccessFile treeFile = new RandomAccessFile(bPlusTreeFile, "rw")) {
-            // Magic (4) + Version (2) + PageSize (4) = 12 bytes
-            treeFile.seek(10);
-
-            // Root page ID (4 bytes)
-            treeFile.writeInt(rootPageId);
-
-            // Total pages (4 bytes)
-            treeFile.writeInt(totalPages);
-
-            // Tree height (2 bytes)
-            treeFile.writeShort(treeHeight);
-
-            System.out.println("Header עודכן: Root=" + rootPageId + ", Pages=" + totalPages + ", Height=" + treeHeight);
+    // קריאה מוקדמת דרך התהליכון של הדיסק שעליו הקובץ (null = ללא קריאה מוקדמת)
+    private Function<String, Executor> readAhead() {
+        if (readAheadPools.isEmpty()) {
+            return null;
         }
+        return fileName -> readAheadPools.get(new File(fileName).getParent());
     }
 
-
-    private static class TermStream implements Comparable<TermStream> {
-        String fileName;
-        DataInputStream inputStream;
-        String currentTerm;
-        Map<Integer, List<Integer>> currentPostings;
-
-        public TermStream(String fileName, DataInputStream inputStream,
-                          String currentTerm, Map<Integer, List<Integer>> currentPostings) {
-            this.fileName = fileName;
-            this.inputStream = inputStream;
-            this.currentTerm = currentTerm;
-            this.currentPostings = currentPostings;
-        }
-
-        @Override
-        public int compareTo(TermStream other) {
-            return this.currentTerm.compareTo(other.currentTerm);
-        }
+    private String runFileName(int pass, int group) {
+        return tempDirFor(group) + File.separator + "run_" + pass + "_" + group + ".bin";
     }
 
-    private record LeafPageInfo(int pageId, String firstKey) {
+    // קטעי הטווחים נקראים בחזרה לפי שמם, ולכן מפוזרים תמיד לפי הסדר
+    private String rangeFileName(String kind, int range) {
+        File dir = tempDirs.get(range % tempDirs.size());
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir + File.separator + kind + "_" + range + ".seg";
     }
 }
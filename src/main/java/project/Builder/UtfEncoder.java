@@ -15,4 +15,30 @@ public final class UtfEncoder {
         }
         return utflen;
     }
+
+    // קידוד לבתים באותו UTF-8 מותאם של writeUTF (ללא קידומת האורך)
+    public static byte[] encode(String str) {
+        byte[] bytes = new byte[getUTFLength(str)];
+        encode(str, bytes, 0);
+        return bytes;
+    }
+
+    // קידוד לתוך מערך קיים (נדרשים עד 3 בתים לתו) - מחזיר את מספר הבתים שנכתבו
+    public static int encode(String str, byte[] dest, int offset) {
+        int index = offset;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F)) {
+                dest[index++] = (byte) c;
+            } else if (c > 0x07FF) {
+                dest[index++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                dest[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dest[index++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                dest[index++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                dest[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return index - offset;
+    }
 }
@@ -18,6 +18,9 @@ public class Config {
     static {
         DEFAULTS.put("index.path", "./index");
         DEFAULTS.put("paths.file", "./index/paths.dat");
+        DEFAULTS.put("paths.offsets.file", "./index/paths_offsets.dat");
+        DEFAULTS.put("doc.values.file", "./index/doc_values.dat");
+        DEFAULTS.put("file.types.file", "./index/file_types.dat");
         DEFAULTS.put("name.temp.path", "./name-temp");
         DEFAULTS.put("content.temp.path", "./content-temp");
 
@@ -32,8 +35,33 @@ public class Config {
 
         DEFAULTS.put("content.max.memory", "1073741824");
         DEFAULTS.put("name.max.memory", "1073741824");
+        DEFAULTS.put("heap.budget.fraction", "0.5");
+        DEFAULTS.put("heap.flush.threshold", "0.85");
         DEFAULTS.put("page.size", "8192");
         DEFAULTS.put("buffer.size", "65536");
+        DEFAULTS.put("paths.buffer.size", "1048576");
+        DEFAULTS.put("paths.format", "2");
+        DEFAULTS.put("page.cache.bytes", "8388608");
+        DEFAULTS.put("results.validate", "false");
+        DEFAULTS.put("postings.version", "2");
+        DEFAULTS.put("tree.page.format", "2");
+        DEFAULTS.put("tree.restart.interval", "16");
+
+        DEFAULTS.put("pipeline.enabled", "true");
+        DEFAULTS.put("pipeline.extract.threads", "4");
+        DEFAULTS.put("pipeline.tokenize.threads", "2");
+        DEFAULTS.put("pipeline.queue.size", "128");
+        DEFAULTS.put("pipeline.sharded", "true");
+        DEFAULTS.put("flush.max.inflight", "1");
+        DEFAULTS.put("merge.threads", "0");
+        DEFAULTS.put("temp.compress", "false");
+        DEFAULTS.put("temp.stripe", "round-robin");
+        DEFAULTS.put("merge.read.ahead", "true");
+        DEFAULTS.put("merge.max.fanin", "64");
+        DEFAULTS.put("merge.concurrent", "true");
+        DEFAULTS.put("merge.io.concurrency", "2");
+        DEFAULTS.put("name.merge.buffer.budget", "16777216");
+        DEFAULTS.put("content.merge.buffer.budget", "67108864");
 
         DEFAULTS.put("index.types", "name,content");
         DEFAULTS.put("indexed.drives", "");
@@ -108,6 +136,30 @@ public class Config {
         }
     }
 
+    public long getLong(String key) {
+        try {
+            return Long.parseLong(get(key));
+        } catch (Exception e) {
+            return Long.parseLong(DEFAULTS.getOrDefault(key, "0"));
+        }
+    }
+
+    public double getDouble(String key) {
+        try {
+            return Double.parseDouble(get(key));
+        } catch (Exception e) {
+            return Double.parseDouble(DEFAULTS.getOrDefault(key, "0"));
+        }
+    }
+
+    public boolean getBoolean(String key) {
+        String value = get(key);
+        if (value == null) {
+            return Boolean.parseBoolean(DEFAULTS.get(key));
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
     public List<String> getList(String key) {
         String raw = get(key);
         if (raw == null || raw.trim().isEmpty()) return Collections.emptyList();
@@ -125,11 +177,126 @@ public class Config {
         return getInt("buffer.size");
     }
 
+    // מאגר הכתיבה של קובץ הנתיבים - נכתב לדיסק רק כשהוא מתמלא
+    public int getPathsBufferSize() {
+        return getInt("paths.buffer.size");
+    }
+
     public int getPageSize() {
         return getInt("page.size");
     }
-    public int getMaxMemory(String type) {
-        return getInt(type + ".max.memory");
+
+    // גודל מאגר העמודים המשותף לעצי ה-B+ בזמן חיפוש (בבתים)
+    public long getPageCacheBytes() {
+        return Math.max(0, getLong("page.cache.bytes"));
+    }
+
+    // בדיקה בזמן הצגת התוצאות שהקובץ עדיין קיים (פנייה למערכת הקבצים לכל תוצאה)
+    public boolean isResultValidationEnabled() {
+        return getBoolean("results.validate");
+    }
+
+    // גרסת פורמט קובץ ה-Postings שייכתב בבנייה (ראה PostingsFormat)
+    public short getPostingsVersion() {
+        int version = getInt("postings.version");
+        return version >= PostingsFormat.V2 ? PostingsFormat.V2 : PostingsFormat.V1;
+    }
+
+    // פורמט קובץ הנתיבים שייכתב בבנייה (ראה PathStoreFormat)
+    public short getPathStoreFormat() {
+        int format = getInt("paths.format");
+        return format >= PathStoreFormat.DIRECTORY_TREE ? PathStoreFormat.DIRECTORY_TREE : PathStoreFormat.FLAT;
+    }
+
+    // פורמט העמודים בקובץ העץ שייכתב בבנייה (ראה TreePageFormat)
+    public short getTreePageFormat() {
+        int format = getInt("tree.page.format");
+        return (short) Math.max(TreePageFormat.LEGACY, Math.min(format, TreePageFormat.FRONT_CODED));
+    }
+
+    // כל כמה מפתחות נשמר מפתח מלא בעלה בפורמט FRONT_CODED
+    public int getTreeRestartInterval() {
+        return Math.max(1, Math.min(getInt("tree.restart.interval"), Short.MAX_VALUE));
+    }
+    public long getMaxMemory(String type) {
+        return getLong(type + ".max.memory");
+    }
+
+    // תקציב הזיכרון לבלוקי SPIMI של סוג אינדקס: הערך המוגדר (0 = אוטומטי),
+    // ולכל היותר חלקו היחסי מתוך heap.budget.fraction של ה-Xmx
+    public long getMemoryBudget(String type) {
+        int indexTypes = Math.max(1, getList("index.types").size());
+        long heapShare = (long) (Runtime.getRuntime().maxMemory() * getDouble("heap.budget.fraction") / indexTypes);
+        long configured = getMaxMemory(type);
+        return configured > 0 ? Math.min(configured, heapShare) : heapShare;
+    }
+
+    // ========== צינור האינדוקס ==========
+
+    public boolean isPipelineEnabled() {
+        return getBoolean("pipeline.enabled");
+    }
+
+    // מספר התהליכונים בשלב נתון של הצינור (extract / tokenize)
+    public int getPipelineThreads(String stage) {
+        return Math.max(1, getInt("pipeline." + stage + ".threads"));
+    }
+
+    public int getPipelineQueueSize() {
+        return Math.max(1, getInt("pipeline.queue.size"));
+    }
+
+    // האם תהליכוני הפירוק מכניסים ישירות ל-shard פרטי של SPIMI
+    public boolean isShardedIndexing() {
+        return isPipelineEnabled() && getBoolean("pipeline.sharded");
+    }
+
+    // מספר ה-shards שביניהם מתחלק תקציב הזיכרון של SPIMI
+    public int getIndexShards() {
+        return isShardedIndexing() ? getPipelineThreads("tokenize") : 1;
+    }
+
+    // מספר בלוקים מלאים שנכתבים לדיסק ברקע בזמן שהאינדוקס ממשיך (0 = כתיבה סינכרונית)
+    public int getFlushInFlight() {
+        return Math.max(0, getInt("flush.max.inflight"));
+    }
+
+    // ========== מיזוג הבלוקים ==========
+
+    // מספר טווחי המונחים שממוזגים במקביל (0 = לפי מספר המעבדים)
+    public int getMergeThreads() {
+        int threads = getInt("merge.threads");
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    // דחיסת מסגרות קבצי הבלוקים הזמניים ב-Deflater מהיר - פחות דיסק וקריאה מהירה יותר בדיסק מכני
+    public boolean isTempCompressed() {
+        return getBoolean("temp.compress");
+    }
+
+    // קריאה מוקדמת של המסגרת הבאה בכל בלוק, בתהליכון נפרד לכל תיקייה זמנית
+    public boolean isMergeReadAhead() {
+        return getBoolean("merge.read.ahead");
+    }
+
+    // מספר קבצי הבלוקים המרבי שממוזגים יחד; מעבר לכך מתבצעים מיזוגי ביניים
+    public int getMergeFanIn() {
+        return Math.max(2, getInt("merge.max.fanin"));
+    }
+
+    // האם מיזוגי אינדקס השמות ואינדקס התוכן רצים במקביל
+    public boolean isConcurrentMerge() {
+        return getBoolean("merge.concurrent");
+    }
+
+    // מספר מיזוגי הטווחים (מכל סוגי האינדקס יחד) שקוראים וכותבים לדיסק בו-זמנית
+    public int getMergeIoConcurrency() {
+        return Math.max(1, getInt("merge.io.concurrency"));
+    }
+
+    // תקציב הבתים למאגרי הקריאה של זרמי הבלוקים במיזוג של סוג אינדקס
+    public long getMergeBufferBudget(String type) {
+        return Math.max(0, getLong(type + ".merge.buffer.budget"));
     }
 
     public String getIndexPath() {
@@ -140,13 +307,36 @@ public class Config {
         }
     }
 
-    public String getTempDir(String type) { return get(type + ".temp.path"); }
+    // תיקיות זמניות לבלוקי SPIMI - רשימה מופרדת בפסיקים, רצוי תיקייה לכל דיסק
+    public List<String> getTempDirs(String type) {
+        List<String> dirs = getList(type + ".temp.path");
+        return dirs.isEmpty() ? Collections.singletonList(DEFAULTS.get(type + ".temp.path")) : dirs;
+    }
+
+    // פיזור הבלוקים בין התיקיות הזמניות: round-robin (ברירת מחדל) או free-space
+    public boolean isTempStripedByFreeSpace() {
+        return "free-space".equalsIgnoreCase(get("temp.stripe").trim());
+    }
 
 
     public String getPathsFile() {
         return get("paths.file");
     }
 
+    // טבלת offsets ברוחב קבוע של 8 בתים: לכל docId (FLAT) או לכל בלוק של docId (DIRECTORY_TREE)
+    public String getPathOffsetsFile() {
+        return get("paths.offsets.file");
+    }
+
+    // מאפייני הקבצים (גודל, תאריכים, סיומת, דגלים) בעמודות ברוחב קבוע לפי docId
+    public String getDocValuesFile() {
+        return get("doc.values.file");
+    }
+
+    // רשימות ה-docId לכל קטגוריית סוג קובץ (ראה FileCategory)
+    public String getFileTypesFile() {
+        return get("file.types.file");
+    }
 
     public String getLenFile(String type) {
         return get(type + ".len.path");
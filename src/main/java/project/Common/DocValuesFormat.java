@@ -0,0 +1,55 @@
+package project.Common;
+
+import java.util.Locale;
+
+// קובץ ה-doc values: מאפייני הקובץ של כל מסמך, נשמרים בזמן הסריקה מתוך BasicFileAttributes.
+// הפריסה עמודתית ברוחב קבוע - הערך של docId בכל עמודה נמצא ב-offset העמודה + docId * רוחב
+//   Header: magic "SDV1" (int), מספר המסמכים (int), offset טבלת הסיומות (long)
+//   עמודות לפי הסדר: גודל (long), זמן שינוי (long, מילישניות), זמן יצירה (long, מילישניות),
+//   מזהה סיומת (unsigned short, 0 = אין), דגלים (byte)
+//   טבלת הסיומות בסוף הקובץ: [int מספר סיומות] ואז writeUTF לכל סיומת לפי הסדר, החל ממזהה 1
+public final class DocValuesFormat {
+    public static final int MAGIC = 0x53445631;
+    public static final int HEADER_SIZE = 16;
+    public static final int DOC_COUNT_OFFSET = 4;
+    public static final int EXTENSION_TABLE_OFFSET = 8;
+
+    public static final int SIZE = 0;
+    public static final int MODIFIED = 1;
+    public static final int CREATED = 2;
+    public static final int EXTENSION = 3;
+    public static final int FLAGS = 4;
+    private static final int[] COLUMN_WIDTHS = {8, 8, 8, 2, 1};
+    public static final int COLUMN_COUNT = COLUMN_WIDTHS.length;
+
+    public static final int MAX_EXTENSION_ID = 0xFFFF;
+
+    public static final byte FLAG_DIRECTORY = 1;
+    public static final byte FLAG_SYMBOLIC_LINK = 2;
+    public static final byte FLAG_OTHER = 4;
+
+    private DocValuesFormat() {
+    }
+
+    public static int columnWidth(int column) {
+        return COLUMN_WIDTHS[column];
+    }
+
+    // offset העמודה בקובץ - העמודות שלפניה באורך מלא של documentCount ערכים
+    public static long columnOffset(int column, int documentCount) {
+        long offset = HEADER_SIZE;
+        for (int c = 0; c < column; c++) {
+            offset += (long) COLUMN_WIDTHS[c] * documentCount;
+        }
+        return offset;
+    }
+
+    // סיומת הקובץ באותיות קטנות ("" אם אין) - נקודה בתחילת השם או בסופו אינה סיומת
+    public static String extensionOf(String fileName) {
+        int dotIndex = fileName.lastIndexOf('.');
+        if (dotIndex > 0 && dotIndex < fileName.length() - 1) {
+            return fileName.substring(dotIndex + 1).toLowerCase(Locale.ROOT);
+        }
+        return "";
+    }
+}
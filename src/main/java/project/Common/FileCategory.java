@@ -0,0 +1,45 @@
+package project.Common;
+
+import java.util.List;
+import java.util.Set;
+
+// קטגוריית סוג הקובץ של מסמך (תיקייה, טקסט, תמונה...) - נקבעת בבנייה לפי הסיומת ודגל התיקייה
+// ונשמרת כרשימות docId לכל קטגוריה (ראה FileTypePostingsFormat)
+public final class FileCategory {
+    public static final int FOLDER = 0;
+    public static final int TEXT = 1;
+    public static final int IMAGE = 2;
+    public static final int DOCUMENT = 3;
+    public static final int VIDEO = 4;
+    public static final int AUDIO = 5;
+    public static final int COUNT = 6;
+
+    // בדיקה לפי הסדר - סיומת שמופיעה בכמה רשימות (למשל doc) שייכת לראשונה
+    private static final List<Set<String>> EXTENSIONS = List.of(
+            extensions("txt|csv|rtf|log|md|json|xml|html|css|js|py|java|c|cpp|h|doc|docx|xlsx|xls|odt"),
+            extensions("jpg|jpeg|png|gif|bmp|svg|webp|tiff|ico|raw"),
+            extensions("pdf|doc|docx|ppt|pptx|xls|xlsx|odt|ods|odp"),
+            extensions("mp4|avi|mov|wmv|flv|mkv|webm|m4v|3gp|mpg|mpeg"),
+            extensions("mp3|wav|flac|aac|ogg|wma|m4a|opus"));
+    private static final int[] CATEGORIES = {TEXT, IMAGE, DOCUMENT, VIDEO, AUDIO};
+
+    private FileCategory() {
+    }
+
+    private static Set<String> extensions(String list) {
+        return Set.of(list.split("\\|"));
+    }
+
+    // הקטגוריה לפי סיומת באותיות קטנות (ראה DocValuesFormat.extensionOf); סיומת לא מוכרת נחשבת טקסט
+    public static int of(String extension, boolean directory) {
+        if (directory) {
+            return FOLDER;
+        }
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (EXTENSIONS.get(i).contains(extension)) {
+                return CATEGORIES[i];
+            }
+        }
+        return TEXT;
+    }
+}
@@ -0,0 +1,14 @@
+package project.Common;
+
+// קובץ ה-postings של קטגוריות סוג הקובץ (ראה FileCategory): לכל קטגוריה רשימת docId ממוינת,
+// כך שסינון לפי סוג הוא חיתוך רשימות
+//   Header: magic "SFT1" (int), ואז מספר המסמכים בכל קטגוריה (int) לפי סדר הקטגוריות
+//   ואחריו הרשימות לפי אותו סדר, כל docId כ-int
+public final class FileTypePostingsFormat {
+    public static final int MAGIC = 0x53465431;
+    public static final int COUNTS_OFFSET = 4;
+    public static final int HEADER_SIZE = COUNTS_OFFSET + 4 * FileCategory.COUNT;
+
+    private FileTypePostingsFormat() {
+    }
+}
@@ -0,0 +1,27 @@
+package project.Common;
+
+// פורמטי קובץ הנתיבים (paths.dat) וטבלת ה-offsets שלו
+//   FLAT: כל נתיב מלא בפורמט של writeUTF, בלי Header; בטבלת ה-offsets רשומה של 8 בתים לכל docId
+//   DIRECTORY_TREE: כל תיקייה נשמרת פעם אחת כ-(תיקיית אב, קטע שם) וכל נתיב כ-(תיקייה, שם עלה).
+//       קטע השם כולל את המפריד שלפניו, כך שהנתיב המקורי הוא שרשור מדויק של הקטעים.
+//       Header: magic "SPDT" (int), מספר המסמכים (int), offset טבלת התיקיות (long)
+//       רשומת מסמך: [vint מזהה תיקייה + 1 (0 = אין)][vint אורך][שם UTF-8 מותאם]
+//       טבלת התיקיות בסוף הקובץ: [vint מספר תיקיות] ואז רשומות באותו מבנה, תיקיית אב לפני בניה.
+//       בטבלת ה-offsets נשמר offset רק לכל BLOCK_SIZE מסמכים, ושאר הרשומות בבלוק נסרקות ממנו
+public final class PathStoreFormat {
+    public static final short FLAT = 1;
+    public static final short DIRECTORY_TREE = 2;
+
+    public static final int MAGIC = 0x53504454;
+    public static final int HEADER_SIZE = 16;
+    public static final int DOC_COUNT_OFFSET = 4;
+    public static final int DIRECTORY_TABLE_OFFSET = 8;
+
+    public static final int BLOCK_SIZE = 16;
+    public static final int OFFSET_ENTRY_SIZE = 8;
+    // אורך מקסימלי של נתיב (FLAT) או של קטע שם (DIRECTORY_TREE) ב-UTF-8 מותאם
+    public static final int MAX_UTF_LENGTH = 0xFFFF;
+
+    private PathStoreFormat() {
+    }
+}
@@ -0,0 +1,73 @@
+package project.Common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// פורמטי קובץ ה-Postings (הגרסה נשמרת ב-Header של קובץ העץ "BPT1")
+//   V1: לכל מסמך docId, count ו-positions כ-int גולמי של 4 בתים
+//   V2: numDocs, ולכל מסמך הפרש docId, count והפרשי positions - בקידוד VByte
+public final class PostingsFormat {
+    public static final short V1 = 1;
+    public static final short V2 = 2;
+
+    private PostingsFormat() {
+    }
+
+    // כתיבת int לא שלילי ב-VByte (7 ביטים לבית, הביט העליון מסמן המשך) - מחזיר מספר בתים
+    public static int writeVInt(DataOutput out, int value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            bytes++;
+        }
+        out.writeByte(value);
+        return bytes;
+    }
+
+    public static int writeVLong(DataOutput out, long value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            bytes++;
+        }
+        out.writeByte((int) value);
+        return bytes;
+    }
+
+    // מספר הבתים שערך יתפוס בקידוד VByte
+    public static int vIntSize(int value) {
+        return vLongSize(value & 0xFFFFFFFFL);
+    }
+
+    public static int vLongSize(long value) {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    public static int readVInt(DataInput in) throws IOException {
+        byte b = in.readByte();
+        int value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    public static long readVLong(DataInput in) throws IOException {
+        byte b = in.readByte();
+        long value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
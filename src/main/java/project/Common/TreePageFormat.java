@@ -0,0 +1,22 @@
+package project.Common;
+
+// פורמטי העמודים בקובץ העץ (נשמר ב-Header של "BPT1" בבתים 20-21, שהיו ריפוד אפסים)
+//   LEGACY:  רשומות רציפות (writeUTF) - פענוח העמוד כולו וסריקה לינארית
+//   SLOTTED: אחרי כותרת העמוד מערך offsets (unsigned short) לכל רשומה,
+//            כך שאפשר לבצע חיפוש בינארי ישירות על בתי העמוד
+//   FRONT_CODED: עמודים פנימיים כמו SLOTTED עם מפתחות מפרידים קצרים ככל האפשר;
+//            בעלים המפתחות מקודדים כקידומת משותפת עם הקודם + סיומת, עם נקודת restart
+//            (מפתח מלא) כל N רשומות, ומערך ה-slots מצביע רק על נקודות ה-restart.
+//            N נשמר ב-Header בבתים 22-23
+public final class TreePageFormat {
+    public static final short LEGACY = 0;
+    public static final short SLOTTED = 1;
+    public static final short FRONT_CODED = 2;
+
+    // גודל כותרת עמוד: type, reserved, count ו-nextPageId (עלה) או firstPointer (פנימי)
+    public static final int PAGE_HEADER_SIZE = 8;
+    public static final int SLOT_SIZE = 2;
+
+    private TreePageFormat() {
+    }
+}
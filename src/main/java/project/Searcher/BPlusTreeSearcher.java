@@ -1,49 +1,81 @@
 package project.Searcher;
 
 import project.Builder.IndexEntry;
+import project.Common.Config;
+import project.Common.PostingsFormat;
+import project.Common.TreePageFormat;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 // חיפוש בעץ B+ מבוסס דיסק - טוען רק את הצמתים הנדרשים
-// עם שורש בזיכרון וcache משופר
+// עם שורש בזיכרון וcache משופר.
+// קובץ העץ ממופה לזיכרון וכל הקריאות מיקומיות (ללא seek), ולכן מותר לקרוא
+// ל-searchTerm ול-getTermInfo מכמה תהליכונים במקביל
 public class BPlusTreeSearcher implements AutoCloseable {
-    private final RandomAccessFile treeFile;
-    private final RandomAccessFile postingsFile;
+    private final FileChannel treeChannel;
+    // מיפוי של קובץ העץ; null אם הקובץ גדול מדי למיפוי אחד
+    private final MappedByteBuffer treeMap;
+    private final PostingsReader postingsReader;
 
     // מידע מה-Header
+    private final short postingsVersion;
+    private final short pageFormat;
+    private final int restartInterval;
     private final int pageSize;
     private final int rootPageId;
     private final int treeHeight;
 
-    // שורש טעון בזיכרון!
+    // שורש טעון בזיכרון! (מפוענח בפורמט LEGACY, כבתים גולמיים בפורמט SLOTTED)
     private final InternalPageData rootPage;
+    private final byte[] rootData;
 
     // מספר המסמכים ואורך כולל
     private long docsCount;
     private long totalLength;
 
-    // Cache מורחב - כולל השורש + עמודים נוספים
-    private final Map<Integer, byte[]> pageCache = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
-            return size() > 10; // מגביל ל-10 עמודים בcache (לא כולל השורש)
-        }
-    };
+    // מאגר העמודים (משותף בין עצים) והמזהה של הקובץ הזה בתוכו
+    private final PageBufferPool bufferPool;
+    private final int poolFileId;
 
     public BPlusTreeSearcher(String treeFilePath, String postingsFilePath) throws IOException {
-        this.treeFile = new RandomAccessFile(treeFilePath, "r");
-        this.postingsFile = new RandomAccessFile(postingsFilePath, "r");
+        this(treeFilePath, postingsFilePath, new PageBufferPool(
+                Config.getInstance().getPageCacheBytes(), Config.getInstance().getPageSize()));
+    }
+
+    public BPlusTreeSearcher(String treeFilePath, String postingsFilePath, PageBufferPool bufferPool) throws IOException {
+        this.bufferPool = bufferPool;
+        this.poolFileId = bufferPool.registerFile();
+        this.treeChannel = FileChannel.open(Path.of(treeFilePath), StandardOpenOption.READ);
+        long treeSize = treeChannel.size();
+        this.treeMap = treeSize <= Integer.MAX_VALUE
+                ? treeChannel.map(FileChannel.MapMode.READ_ONLY, 0, treeSize)
+                : null;
 
         // קריאת Header
         TreeHeader header = readTreeHeader();
+        this.postingsVersion = header.version;
+        this.pageFormat = header.pageFormat;
+        this.restartInterval = header.restartInterval;
+        this.postingsReader = new PostingsReader(postingsFilePath, postingsVersion);
         this.pageSize = header.pageSize;
         this.rootPageId = header.rootPageId;
         int totalPages = header.totalPages;
         this.treeHeight = header.treeHeight;
 
         // טעינת השורש לזיכרון!
-        this.rootPage = loadRootPage();
+        if (pageFormat >= TreePageFormat.SLOTTED) {
+            this.rootPage = null;
+            this.rootData = loadPageFromDisk(rootPageId);
+        } else {
+            this.rootPage = loadRootPage();
+            this.rootData = null;
+        }
 
         System.out.println("B+ Tree נטען: Root=" + rootPageId + " (בזיכרון), Pages=" + totalPages + ", Height=" + treeHeight);
     }
@@ -88,21 +120,27 @@ public class BPlusTreeSearcher implements AutoCloseable {
             this.docsCount = dis.readLong(); // מספר המסמכים
             this.totalLength = dis.readLong(); // אורך כולל במילים
 
-            Map<Integer, Integer> contentLengths = new HashMap<>();
+            // ה-docId רציפים - אורך כל מסמך במערך לפי ה-docId (0 למסמך שאין לו רשומה)
+            int[] contentLengths = new int[(int) Math.max(16, Math.min(docsCount, Integer.MAX_VALUE - 8))];
+            int maxDocId = -1;
             while(dis.available() >= 8){
                 int docId = dis.readInt();
                 int docLen = dis.readInt();
-                contentLengths.put(docId, docLen);
+                if (docId >= contentLengths.length) {
+                    contentLengths = Arrays.copyOf(contentLengths, Math.max(docId + 1, contentLengths.length * 2));
+                }
+                contentLengths[docId] = docLen;
+                maxDocId = Math.max(maxDocId, docId);
             }
 
-            return new DocumentLengthsStats(docsCount, totalLength, contentLengths);
+            return new DocumentLengthsStats(docsCount, totalLength, Arrays.copyOf(contentLengths, maxDocId + 1));
 
         } catch (FileNotFoundException e) {
             System.err.println("שגיאה: קובץ אורכי תוכן לא נמצא: " + filePath);
-            return new DocumentLengthsStats(0, 0, new HashMap<>());
+            return new DocumentLengthsStats(0, 0, new int[0]);
         } catch (IOException e) {
             System.err.println("שגיאה בקריאת אורכי תוכן: " + e.getMessage());
-            return new DocumentLengthsStats(0, 0, new HashMap<>());
+            return new DocumentLengthsStats(0, 0, new int[0]);
         }
     }
 
@@ -111,6 +149,9 @@ public class BPlusTreeSearcher implements AutoCloseable {
         if (term == null || term.isEmpty()) {
             return null;
         }
+        if (pageFormat >= TreePageFormat.SLOTTED) {
+            return searchTermSlotted(term);
+        }
 
         int currentPageId;
 
@@ -145,6 +186,9 @@ public class BPlusTreeSearcher implements AutoCloseable {
         if (term == null || term.isEmpty()) {
             return null;
         }
+        if (pageFormat >= TreePageFormat.SLOTTED) {
+            return getTermInfoSlotted(term);
+        }
 
         int currentPageId;
 
@@ -179,32 +223,130 @@ public class BPlusTreeSearcher implements AutoCloseable {
 
     // קריאת Header של העץ
     private TreeHeader readTreeHeader() throws IOException {
-        treeFile.seek(0);
+        ByteBuffer header = ByteBuffer.wrap(readBytes(0, 32));
 
         // Magic number (4 bytes)
         byte[] magic = new byte[4];
-        treeFile.read(magic);
+        header.get(magic);
         String magicStr = new String(magic);
         if (!"BPT1".equals(magicStr)) {
             throw new IOException("Invalid tree file format: " + magicStr);
         }
 
-        // Version (2 bytes)
-        short version = treeFile.readShort();
+        // Version (2 bytes) - פורמט קובץ ה-Postings
+        short version = header.getShort();
+        if (version != PostingsFormat.V1 && version != PostingsFormat.V2) {
+            throw new IOException("Unsupported postings format version: " + version);
+        }
 
         // Page size (4 bytes)
-        int pageSize = treeFile.readInt();
+        int pageSize = header.getInt();
 
         // Root page ID (4 bytes)
-        int rootPageId = treeFile.readInt();
+        int rootPageId = header.getInt();
 
         // Total pages (4 bytes)
-        int totalPages = treeFile.readInt();
+        int totalPages = header.getInt();
 
         // Tree height (2 bytes)
-        short treeHeight = treeFile.readShort();
+        short treeHeight = header.getShort();
+
+        // Page format (2 bytes) - אפס בקבצים ישנים
+        short pageFormat = header.getShort();
+        if (pageFormat < TreePageFormat.LEGACY || pageFormat > TreePageFormat.FRONT_CODED) {
+            throw new IOException("Unsupported tree page format: " + pageFormat);
+        }
+
+        // Restart interval של עלי FRONT_CODED (2 bytes)
+        short restartInterval = header.getShort();
+        if (pageFormat >= TreePageFormat.FRONT_CODED && restartInterval <= 0) {
+            throw new IOException("Invalid restart interval: " + restartInterval);
+        }
+
+        return new TreeHeader(version, pageSize, rootPageId, totalPages, treeHeight, pageFormat, restartInterval);
+    }
+
+    // ========== עמודי SLOTTED / FRONT_CODED - חיפוש בינארי על בתי העמוד ללא פענוח ==========
+
+    private SearchResult searchTermSlotted(String term) throws IOException {
+        byte[] key = SlottedPage.encodeKey(term);
+        byte[] leaf = loadSlottedPage(findLeafPageSlotted(key), SlottedPage.PAGE_TYPE_LEAF);
+
+        if (pageFormat >= TreePageFormat.FRONT_CODED) {
+            FrontCodedLeaf match = new FrontCodedLeaf(leaf, restartInterval);
+            if (!match.find(key)) {
+                return null;
+            }
+            long endOffset = match.nextPostingsOffset >= 0 ? match.nextPostingsOffset : nextLeafPostingsOffset(leaf);
+            return new SearchResult(term, match.numDocs, loadPostings(match.postingsOffset, endOffset, match.numDocs));
+        }
+
+        int slot = SlottedPage.findInLeaf(leaf, key);
+        if (slot < 0) {
+            return null;
+        }
+
+        // פענוח הרשומה שנמצאה בלבד
+        int numDocs = SlottedPage.leafNumDocs(leaf, slot);
+        long offset = SlottedPage.leafPostingsOffset(leaf, slot);
+        long endOffset = slottedPostingsEndOffset(leaf, slot);
+        return new SearchResult(term, numDocs, loadPostings(offset, endOffset, numDocs));
+    }
+
+    private TermInfo getTermInfoSlotted(String term) throws IOException {
+        byte[] key = SlottedPage.encodeKey(term);
+        byte[] leaf = loadSlottedPage(findLeafPageSlotted(key), SlottedPage.PAGE_TYPE_LEAF);
+
+        if (pageFormat >= TreePageFormat.FRONT_CODED) {
+            FrontCodedLeaf match = new FrontCodedLeaf(leaf, restartInterval);
+            return match.find(key) ? new TermInfo(term, match.numDocs, match.postingsOffset) : null;
+        }
+
+        int slot = SlottedPage.findInLeaf(leaf, key);
+        if (slot < 0) {
+            return null;
+        }
+        return new TermInfo(term, SlottedPage.leafNumDocs(leaf, slot), SlottedPage.leafPostingsOffset(leaf, slot));
+    }
+
+    // ירידה מהשורש (בזיכרון) עד לעלה שאחראי על המפתח
+    private int findLeafPageSlotted(byte[] key) throws IOException {
+        int currentPageId = rootPageId;
+        for (int level = treeHeight; level > 1; level--) {
+            byte[] internalPage = loadSlottedPage(currentPageId, SlottedPage.PAGE_TYPE_INTERNAL);
+            currentPageId = SlottedPage.findChild(internalPage, key);
+        }
+        return currentPageId;
+    }
 
-        return new TreeHeader(version, pageSize, rootPageId, totalPages, treeHeight);
+    // סוף טווח ה-postings: ה-offset של הרשומה הבאה (גם בעלה הבא), או סוף הקובץ
+    private long slottedPostingsEndOffset(byte[] leaf, int slot) throws IOException {
+        if (slot + 1 < SlottedPage.count(leaf)) {
+            return SlottedPage.leafPostingsOffset(leaf, slot + 1);
+        }
+        return nextLeafPostingsOffset(leaf);
+    }
+
+    // ה-offset של הרשומה הראשונה בעלה הבא, או סוף הקובץ בעלה האחרון
+    private long nextLeafPostingsOffset(byte[] leaf) throws IOException {
+        int nextPageId = SlottedPage.headerPointer(leaf);
+        if (nextPageId != -1) {
+            byte[] nextLeaf = loadSlottedPage(nextPageId, SlottedPage.PAGE_TYPE_LEAF);
+            if (SlottedPage.count(nextLeaf) > 0) {
+                return pageFormat >= TreePageFormat.FRONT_CODED
+                        ? FrontCodedLeaf.firstPostingsOffset(nextLeaf)
+                        : SlottedPage.leafPostingsOffset(nextLeaf, 0);
+            }
+        }
+        return postingsReader.size();
+    }
+
+    private byte[] loadSlottedPage(int pageId, byte expectedType) throws IOException {
+        byte[] pageData = pageId == rootPageId ? rootData : loadPage(pageId);
+        if (SlottedPage.pageType(pageData) != expectedType) {
+            throw new IOException("Expected page type " + expectedType + ", got type: " + SlottedPage.pageType(pageData));
+        }
+        return pageData;
     }
 
     // טעינת Internal Page מהדיסק (כעת עם cache)
@@ -262,10 +404,9 @@ public class BPlusTreeSearcher implements AutoCloseable {
         }
     }
 
-    // טעינת עמוד עם cache משופר
+    // טעינת עמוד דרך מאגר העמודים (העמודים במאגר לקריאה בלבד)
     private byte[] loadPage(int pageId) throws IOException {
-        // בדיקה ב-cache
-        byte[] cachedData = pageCache.get(pageId);
+        byte[] cachedData = bufferPool.get(poolFileId, pageId);
         if (cachedData != null) {
             return cachedData;
         }
@@ -273,9 +414,9 @@ public class BPlusTreeSearcher implements AutoCloseable {
         // טעינה מהדיסק
         byte[] pageData = loadPageFromDisk(pageId);
 
-        // הוספה ל-cache (השורש לא נכנס כי הוא כבר בזיכרון)
+        // הוספה למאגר (השורש לא נכנס כי הוא כבר בזיכרון)
         if (pageId != rootPageId) {
-            pageCache.put(pageId, pageData.clone());
+            bufferPool.put(poolFileId, pageId, pageData);
         }
 
         return pageData;
@@ -285,17 +426,33 @@ public class BPlusTreeSearcher implements AutoCloseable {
     private byte[] loadPageFromDisk(int pageId) throws IOException {
         // חישוב offset: Header (32 bytes) + pageId * pageSize
         long offset = 32L + (long) pageId * pageSize;
-        treeFile.seek(offset);
+        return readBytes(offset, pageSize);
+    }
 
-        byte[] pageData = new byte[pageSize];
-        int bytesRead = treeFile.read(pageData);
+    // קריאה מיקומית של טווח בתים מקובץ העץ - ללא מצב משותף
+    private byte[] readBytes(long offset, int length) throws IOException {
+        byte[] data = new byte[length];
 
-        if (bytesRead != pageSize) {
-            throw new IOException("Failed to read complete page " + pageId +
-                    ", read " + bytesRead + " bytes instead of " + pageSize);
+        if (treeMap != null) {
+            if (offset + length > treeMap.capacity()) {
+                throw new IOException("Failed to read " + length + " bytes at offset " + offset +
+                        ", tree file size is " + treeMap.capacity());
+            }
+            treeMap.get((int) offset, data);
+            return data;
         }
 
-        return pageData;
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = treeChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Failed to read " + length + " bytes at offset " + offset +
+                        ", read " + buffer.position() + " bytes");
+            }
+            position += read;
+        }
+        return data;
     }
 
     // מציאת ה-Child Page ID המתאים במעמד Internal
@@ -324,10 +481,12 @@ public class BPlusTreeSearcher implements AutoCloseable {
 
     // חיפוש מונח ב-Leaf Page
     private SearchResult findTermInLeaf(LeafPageData page, String term) throws IOException {
-        for (IndexEntry entry : page.entries) {
+        for (int i = 0; i < page.entries.size(); i++) {
+            IndexEntry entry = page.entries.get(i);
             if (term.equals(entry.term)) {
                 // נמצא! טען את ה-postings
-                List<PostingEntry> postings = loadPostings(entry.postingsOffset, entry.numDocs);
+                long endOffset = postingsEndOffset(page, i);
+                List<PostingEntry> postings = loadPostings(entry.postingsOffset, endOffset, entry.numDocs);
                 return new SearchResult(entry.term, entry.numDocs, postings);
             }
         }
@@ -335,6 +494,20 @@ public class BPlusTreeSearcher implements AutoCloseable {
         return null; // לא נמצא
     }
 
+    // סוף טווח ה-postings של רשומה: ה-offset של הרשומה הבאה (גם בעמוד העלה הבא), או סוף הקובץ
+    private long postingsEndOffset(LeafPageData page, int index) throws IOException {
+        if (index + 1 < page.entries.size()) {
+            return page.entries.get(index + 1).postingsOffset;
+        }
+        if (page.nextPageId != -1) {
+            LeafPageData nextPage = loadLeafPage(page.nextPageId);
+            if (!nextPage.entries.isEmpty()) {
+                return nextPage.entries.get(0).postingsOffset;
+            }
+        }
+        return postingsReader.size();
+    }
+
     // חיפוש מידע על מונח ב-Leaf Page (ללא טעינת postings)
     private TermInfo findTermInfoInLeaf(LeafPageData page, String term) {
         for (IndexEntry entry : page.entries) {
@@ -346,41 +519,38 @@ public class BPlusTreeSearcher implements AutoCloseable {
         return null; // לא נמצא
     }
 
-    // טעינת Postings מקובץ ה-Postings
-    private List<PostingEntry> loadPostings(long offset, int numDocs) throws IOException {
-        postingsFile.seek(offset);
-
-        List<PostingEntry> postings = new ArrayList<>();
+    // טעינת Postings מקובץ ה-Postings - קריאה אחת של כל הטווח ופענוח למערכי int
+    private List<PostingEntry> loadPostings(long offset, long endOffset, int numDocs) throws IOException {
+        PostingsReader.DecodedPostings decoded = postingsReader.read(offset, endOffset, numDocs);
 
-        // קריאת כל ה-documents
-        for (int i = 0; i < numDocs; i++) {
-            int docId = postingsFile.readInt();
-            int numPositions = postingsFile.readInt();
-
-            List<Integer> positions = new ArrayList<>();
-            for (int j = 0; j < numPositions; j++) {
-                positions.add(postingsFile.readInt());
-            }
-
-            postings.add(new PostingEntry(docId, positions));
+        List<PostingEntry> postings = new ArrayList<>(decoded.docIds.length);
+        for (int i = 0; i < decoded.docIds.length; i++) {
+            List<Integer> positions = new IntSliceList(decoded.positions,
+                    decoded.positionStarts[i], decoded.positionStarts[i + 1]);
+            postings.add(new PostingEntry(decoded.docIds[i], positions));
         }
 
         return postings;
     }
 
-    // סטטיסטיקות על השימוש ב-cache
+    // סטטיסטיקות על השימוש במאגר העמודים (משותף לכל העצים שמשתמשים בו)
     public void printCacheStats() {
-        System.out.println("Cache size: " + pageCache.size() + "/10");
-        System.out.println("Root in memory: " + (rootPage != null ? "Yes" : "No"));
+        System.out.println("Page pool: " + bufferPool);
+        System.out.println("Root in memory: " + (rootPage != null || rootData != null ? "Yes" : "No"));
+    }
+
+    public PageBufferPool getBufferPool() {
+        return bufferPool;
     }
 
     @Override
     public void close() throws IOException {
-        if (treeFile != null) {
-            treeFile.close();
+        bufferPool.invalidate(poolFileId);
+        if (treeChannel != null) {
+            treeChannel.close();
         }
-        if (postingsFile != null) {
-            postingsFile.close();
+        if (postingsReader != null) {
+            postingsReader.close();
         }
     }
 
@@ -392,13 +562,18 @@ public class BPlusTreeSearcher implements AutoCloseable {
         final int rootPageId;
         final int totalPages;
         final short treeHeight;
+        final short pageFormat;
+        final short restartInterval;
 
-        TreeHeader(short version, int pageSize, int rootPageId, int totalPages, short treeHeight) {
+        TreeHeader(short version, int pageSize, int rootPageId, int totalPages, short treeHeight,
+                   short pageFormat, short restartInterval) {
             this.version = version;
             this.pageSize = pageSize;
             this.rootPageId = rootPageId;
             this.totalPages = totalPages;
             this.treeHeight = treeHeight;
+            this.pageFormat = pageFormat;
+            this.restartInterval = restartInterval;
         }
     }
 
@@ -473,12 +648,36 @@ public class BPlusTreeSearcher implements AutoCloseable {
         }
     }
 
+    // תצוגת List על קטע ממערך int - ללא העתקה וללא Integer מראש
+    private static class IntSliceList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] values;
+        private final int from;
+        private final int to;
+
+        IntSliceList(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            Objects.checkIndex(index, to - from);
+            return values[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
     public class DocumentLengthsStats {
         public final int documentCount;
         public final long totalLength;
-        public final Map<Integer, Integer> documentLengths;
+        public final int[] documentLengths;
 
-        public DocumentLengthsStats(long documentCount, long totalLength, Map<Integer, Integer> documentLengths) {
+        public DocumentLengthsStats(long documentCount, long totalLength, int[] documentLengths) {
             this.documentCount = (int) documentCount;
             this.totalLength = totalLength;
             this.documentLengths = documentLengths;
@@ -0,0 +1,117 @@
+package project.Searcher;
+
+import project.Common.DocValuesFormat;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// קריאת קובץ ה-doc values (ראה DocValuesFormat) ממופה לזיכרון, בגישה אבסולוטית בלבד (בטוח לחיפושים מקבילים).
+// כל ערך מיושר לרוחב שלו, ולכן ערך לעולם לא חוצה גבול בין מקטעי המיפוי
+class DocValuesReader implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int documentCount;
+    private final long[] columnOffsets = new long[DocValuesFormat.COLUMN_COUNT];
+    // הסיומת לפי מזהה (מזהה 0 = אין סיומת)
+    private final String[] extensions;
+
+    DocValuesReader(String filePath) throws IOException {
+        this.channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+
+            if (size < DocValuesFormat.HEADER_SIZE || segments[0].getInt(0) != DocValuesFormat.MAGIC) {
+                throw new IOException("Not a doc values file: " + filePath);
+            }
+            this.documentCount = segments[0].getInt(DocValuesFormat.DOC_COUNT_OFFSET);
+            long extensionTableOffset = segments[0].getLong(DocValuesFormat.EXTENSION_TABLE_OFFSET);
+            if (documentCount < 0
+                    || extensionTableOffset != DocValuesFormat.columnOffset(DocValuesFormat.COLUMN_COUNT, documentCount)
+                    || extensionTableOffset + 4 > size) {
+                throw new IOException("Corrupt doc values header: " + filePath);
+            }
+            for (int c = 0; c < columnOffsets.length; c++) {
+                columnOffsets[c] = DocValuesFormat.columnOffset(c, documentCount);
+            }
+
+            channel.position(extensionTableOffset);
+            DataInputStream table = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            int extensionCount = table.readInt();
+            this.extensions = new String[extensionCount + 1];
+            extensions[0] = "";
+            for (int i = 1; i <= extensionCount; i++) {
+                extensions[i] = table.readUTF();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    boolean contains(int docId) {
+        return docId >= 0 && docId < documentCount;
+    }
+
+    long size(int docId) {
+        return readLong(DocValuesFormat.SIZE, docId);
+    }
+
+    long lastModified(int docId) {
+        return readLong(DocValuesFormat.MODIFIED, docId);
+    }
+
+    long created(int docId) {
+        return readLong(DocValuesFormat.CREATED, docId);
+    }
+
+    int extensionId(int docId) {
+        long position = columnOffsets[DocValuesFormat.EXTENSION] + 2L * docId;
+        return segment(position).getShort((int) (position % SEGMENT_SIZE)) & 0xFFFF;
+    }
+
+    String extension(int docId) {
+        int id = extensionId(docId);
+        return id < extensions.length ? extensions[id] : "";
+    }
+
+    boolean isDirectory(int docId) {
+        return (flags(docId) & DocValuesFormat.FLAG_DIRECTORY) != 0;
+    }
+
+    byte flags(int docId) {
+        long position = columnOffsets[DocValuesFormat.FLAGS] + docId;
+        return segment(position).get((int) (position % SEGMENT_SIZE));
+    }
+
+    private long readLong(int column, int docId) {
+        long position = columnOffsets[column] + 8L * docId;
+        return segment(position).getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,131 @@
+package project.Searcher;
+
+import project.Common.FileCategory;
+import project.Common.FileTypePostingsFormat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// רשימות ה-docId של קטגוריות סוג הקובץ (ראה FileTypePostingsFormat), ממופות לזיכרון.
+// הסינון הוא חיתוך של רשימת מועמדים ממוינת עם הרשימות בקפיצות מעריכיות (galloping) לשני הכיוונים,
+// כך שהעלות תלויה ברשימה הקצרה מבין השתיים ולא בגודל הקטגוריה או בכמות המועמדים
+class FileTypePostings implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int[] counts = new int[FileCategory.COUNT];
+    private final long[] offsets = new long[FileCategory.COUNT];
+
+    FileTypePostings(String filePath) throws IOException {
+        this.channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+
+            if (size < FileTypePostingsFormat.HEADER_SIZE || segments[0].getInt(0) != FileTypePostingsFormat.MAGIC) {
+                throw new IOException("Not a file type postings file: " + filePath);
+            }
+            long offset = FileTypePostingsFormat.HEADER_SIZE;
+            for (int c = 0; c < FileCategory.COUNT; c++) {
+                counts[c] = segments[0].getInt(FileTypePostingsFormat.COUNTS_OFFSET + 4 * c);
+                offsets[c] = offset;
+                offset += 4L * counts[c];
+            }
+            if (offset > size) {
+                throw new IOException("Truncated file type postings file: " + filePath);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // לכל מועמד (docId בסדר עולה) - האם הוא באחת מהקטגוריות
+    boolean[] matches(int[] sortedDocIds, int[] categories) {
+        boolean[] matches = new boolean[sortedDocIds.length];
+        for (int category : categories) {
+            intersect(sortedDocIds, category, matches);
+        }
+        return matches;
+    }
+
+    private void intersect(int[] docIds, int category, boolean[] matches) {
+        int n = docIds.length;
+        int m = counts[category];
+        int i = 0;
+        int j = 0;
+        while (i < n && j < m) {
+            int candidate = docIds[i];
+            int posting = docId(category, j);
+            if (candidate == posting) {
+                matches[i++] = true;
+            } else if (candidate < posting) {
+                i = gallop(docIds, i + 1, n, posting);
+            } else {
+                j = gallop(category, j + 1, m, candidate);
+            }
+        }
+    }
+
+    // המקום הראשון ב-[from, to) שערכו לפחות target
+    private static int gallop(int[] values, int from, int to, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && values[high] < target) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int gallop(int category, int from, int to, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && docId(category, high) < target) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (docId(category, mid) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int docId(int category, int index) {
+        long position = offsets[category] + 4L * index;
+        return segments[(int) (position / SEGMENT_SIZE)].getInt((int) (position % SEGMENT_SIZE));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,146 @@
+package project.Searcher;
+
+import java.util.Arrays;
+
+// חיפוש בעלה בפורמט FRONT_CODED: חיפוש בינארי על נקודות ה-restart (מפתחות מלאים בעמוד),
+// ואז סריקה של עד N רשומות תוך שחזור המפתח לתוך מאגר אחד - בלי ליצור String.
+//   רשומה: [shared vint][suffix length vint][suffix][numDocs vint][offset vlong]
+//   ב-restart ה-offset מלא, ובשאר הרשומות הפרש מהרשומה הקודמת
+final class FrontCodedLeaf {
+    private final byte[] page;
+    private final int restartInterval;
+    private int position;
+
+    // תוצאת החיפוש: הרשומה שנמצאה וה-offset של הרשומה שאחריה (-1 אם היא האחרונה בעמוד)
+    int numDocs;
+    long postingsOffset;
+    long nextPostingsOffset;
+
+    FrontCodedLeaf(byte[] page, int restartInterval) {
+        this.page = page;
+        this.restartInterval = restartInterval;
+    }
+
+    boolean find(byte[] key) {
+        int count = SlottedPage.count(page);
+        int restarts = (count + restartInterval - 1) / restartInterval;
+
+        // נקודת ה-restart האחרונה שהמפתח שלה קטן או שווה למפתח החיפוש
+        int low = 0;
+        int high = restarts - 1;
+        int restart = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareRestartKey(mid, key);
+            if (cmp <= 0) {
+                restart = mid;
+                if (cmp == 0) {
+                    break;
+                }
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (restart < 0) {
+            return false;
+        }
+
+        int first = restart * restartInterval;
+        int last = Math.min(first + restartInterval, count);
+        byte[] current = new byte[64];
+        int currentLength = 0;
+        long offset = 0;
+
+        position = SlottedPage.entryOffset(page, restart);
+        for (int index = first; index < last; index++) {
+            int shared = readVInt();
+            int suffixLength = readVInt();
+            currentLength = shared + suffixLength;
+            if (current.length < currentLength) {
+                current = Arrays.copyOf(current, Math.max(currentLength, current.length * 2));
+            }
+            System.arraycopy(page, position, current, shared, suffixLength);
+            position += suffixLength;
+
+            int entryDocs = readVInt();
+            offset = index == first ? readVLong() : offset + readVLong();
+
+            int cmp = compare(current, currentLength, key);
+            if (cmp == 0) {
+                numDocs = entryDocs;
+                postingsOffset = offset;
+                nextPostingsOffset = index + 1 < count ? readNextOffset(index + 1, offset) : -1;
+                return true;
+            }
+            if (cmp > 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // ה-offset של הרשומה הראשונה בעלה (נקודת restart - offset מלא)
+    static long firstPostingsOffset(byte[] page) {
+        FrontCodedLeaf leaf = new FrontCodedLeaf(page, 1);
+        leaf.position = SlottedPage.entryOffset(page, 0);
+        leaf.readVInt(); // shared
+        leaf.skipSuffix();
+        leaf.readVInt(); // numDocs
+        return leaf.readVLong();
+    }
+
+    private long readNextOffset(int index, long previousOffset) {
+        readVInt(); // shared
+        skipSuffix();
+        readVInt(); // numDocs
+        long value = readVLong();
+        return index % restartInterval == 0 ? value : previousOffset + value;
+    }
+
+    private void skipSuffix() {
+        int suffixLength = readVInt();
+        position += suffixLength;
+    }
+
+    private int compareRestartKey(int restart, byte[] key) {
+        position = SlottedPage.entryOffset(page, restart);
+        readVInt(); // shared - תמיד 0 ב-restart
+        int length = readVInt();
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int a = page[position + i] & 0xFF;
+            int b = key[i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static int compare(byte[] current, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int a = current[i] & 0xFF;
+            int b = key[i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int readVInt() {
+        return (int) readVLong();
+    }
+
+    private long readVLong() {
+        byte b = page[position++];
+        long value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = page[position++];
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
@@ -1,6 +1,7 @@
 package project.Searcher;
 
 import project.Common.Config;
+import project.Common.FileCategory;
 import project.Common.TextAnalyzer;
 
 import java.io.*;
@@ -13,21 +14,37 @@ public class IndexSearcherService implements AutoCloseable {
 
     private final BPlusTreeSearcher nameSearcher;
     private final BPlusTreeSearcher contentSearcher;
+    private final PageBufferPool pageBufferPool;
     private final PathResolver pathResolver;
+    private final DocValuesReader docValues;
+    private final FileTypePostings fileTypes;
     private final RankingEngine nameRankingEngine;
     private final RankingEngine contentRankingEngine;
 
     public IndexSearcherService() throws IOException {
         this.config = Config.getInstance();
+
+        // מאגר עמודים אחד לשני העצים - התקציב מתחלק לפי העומס בפועל
+        this.pageBufferPool = new PageBufferPool(config.getPageCacheBytes(), config.getPageSize());
+
         this.nameSearcher = new BPlusTreeSearcher(
                 config.getBPlusTreeFile("name"),
-                config.getPostingsFile("name"));
+                config.getPostingsFile("name"),
+                pageBufferPool);
 
         this.contentSearcher = new BPlusTreeSearcher(
                 config.getBPlusTreeFile("content"),
-                config.getPostingsFile("content"));
-
-        this.pathResolver = new PathResolver(config.getPathsFile());
+                config.getPostingsFile("content"),
+                pageBufferPool);
+
+        this.pathResolver = new PathResolver(config.getPathsFile(), config.getPathOffsetsFile());
+        // אינדקס ישן בלי doc values - מאפייני הקובץ יילקחו ממערכת הקבצים
+        this.docValues = new File(config.getDocValuesFile()).exists()
+                ? new DocValuesReader(config.getDocValuesFile())
+                : null;
+        this.fileTypes = new File(config.getFileTypesFile()).exists()
+                ? new FileTypePostings(config.getFileTypesFile())
+                : null;
 
         // טעינת אורכי מסמכים לדירוג
         BPlusTreeSearcher.DocumentLengthsStats nameLengths = nameSearcher.loadFileLengths(
@@ -44,28 +61,89 @@ public class IndexSearcherService implements AutoCloseable {
 
     // חיפוש בשמות קבצים
     public List<FileResult> searchInFileNames(String query) throws IOException {
-        return performExactSearch(query, nameSearcher);
+        return searchInFileNames(query, null);
     }
 
     // חיפוש בתוכן קבצים
     public List<FileResult> searchInContent(String query) throws IOException {
-        return performExactSearch(query, contentSearcher);
+        return searchInContent(query, null);
     }
 
 
     // חיפוש לא מדויק עם דירוג בשמות קבצים
     public List<FileResult> searchInFileNamesWithRanking(String query) throws IOException {
-        return performFuzzySearchWithRanking(query, nameSearcher, nameRankingEngine);
+        return searchInFileNamesWithRanking(query, null);
     }
 
     // חיפוש לא מדויק עם דירוג בתוכן קבצים
     public List<FileResult> searchInContentWithRanking(String query) throws IOException {
-        return performFuzzySearchWithRanking(query, contentSearcher, contentRankingEngine);
+        return searchInContentWithRanking(query, null);
+    }
+
+    // אותם חיפושים, מסוננים לקטגוריות סוג קובץ (ראה FileCategory; null = ללא סינון)
+    public List<FileResult> searchInFileNames(String query, int[] fileCategories) throws IOException {
+        return performExactSearch(query, nameSearcher, fileCategories);
+    }
+
+    public List<FileResult> searchInContent(String query, int[] fileCategories) throws IOException {
+        return performExactSearch(query, contentSearcher, fileCategories);
     }
 
+    public List<FileResult> searchInFileNamesWithRanking(String query, int[] fileCategories) throws IOException {
+        return performFuzzySearchWithRanking(query, nameSearcher, nameRankingEngine, fileCategories);
+    }
+
+    public List<FileResult> searchInContentWithRanking(String query, int[] fileCategories) throws IOException {
+        return performFuzzySearchWithRanking(query, contentSearcher, contentRankingEngine, fileCategories);
+    }
 
+    // השארת המסמכים שבקטגוריות המבוקשות בלבד - לפני דירוג ופענוח נתיבים, כך שהעלות היא של התוצאות שנשארות
+    private List<BPlusTreeSearcher.PostingEntry> filterByFileType(List<BPlusTreeSearcher.PostingEntry> postings,
+                                                                  int[] fileCategories) {
+        if (fileCategories == null || postings.isEmpty()) {
+            return postings;
+        }
 
-    private List<FileResult> performFuzzySearchWithRanking(String query, BPlusTreeSearcher searcher, RankingEngine ranker) throws IOException {
+        int[] docIds = new int[postings.size()];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = postings.get(i).docId;
+        }
+        boolean[] matches = matchFileTypes(docIds, fileCategories);
+
+        List<BPlusTreeSearcher.PostingEntry> filtered = new ArrayList<>();
+        for (int i = 0; i < docIds.length; i++) {
+            if (matches[i]) {
+                filtered.add(postings.get(i));
+            }
+        }
+        return filtered;
+    }
+
+    // חיתוך עם רשימות הקטגוריות; באינדקס בלי הרשומות - לפי הסיומת שב-doc values
+    private boolean[] matchFileTypes(int[] sortedDocIds, int[] fileCategories) {
+        if (fileTypes != null) {
+            return fileTypes.matches(sortedDocIds, fileCategories);
+        }
+
+        boolean[] matches = new boolean[sortedDocIds.length];
+        for (int i = 0; i < sortedDocIds.length; i++) {
+            int docId = sortedDocIds[i];
+            if (docValues == null || !docValues.contains(docId)) {
+                matches[i] = true;
+                continue;
+            }
+            int category = FileCategory.of(docValues.extension(docId), docValues.isDirectory(docId));
+            for (int fileCategory : fileCategories) {
+                matches[i] |= category == fileCategory;
+            }
+        }
+        return matches;
+    }
+
+
+
+    private List<FileResult> performFuzzySearchWithRanking(String query, BPlusTreeSearcher searcher, RankingEngine ranker,
+                                                          int[] fileCategories) throws IOException {
         // נורמליזציה של החיפוש
         List<String> tokenizedQuery = TextAnalyzer.tokenize(query);
         List<String> normalizedQuery = new ArrayList<>();
@@ -102,7 +180,7 @@ public class IndexSearcherService implements AutoCloseable {
             String term = entry.getKey();
             BPlusTreeSearcher.SearchResult result = entry.getValue();
 
-            for (BPlusTreeSearcher.PostingEntry posting : result.postings) {
+            for (BPlusTreeSearcher.PostingEntry posting : filterByFileType(result.postings, fileCategories)) {
                 DocumentMatch docMatch = documentMatches.computeIfAbsent(
                         posting.docId,
                         k -> new DocumentMatch(posting.docId)
@@ -114,9 +192,6 @@ public class IndexSearcherService implements AutoCloseable {
         List<FileResult> fuzzyMatches = new ArrayList<>();
 
         for (DocumentMatch docMatch : documentMatches.values()) {
-            String filePath = pathResolver.getPath(docMatch.docId);
-            if (filePath == null) continue;
-
 
             // התאמה לא מדויקת - חישוב ציון BM25
             double score = calculateBM25Score(docMatch, normalizedQuery, documentFrequencies, ranker);
@@ -128,15 +203,16 @@ public class IndexSearcherService implements AutoCloseable {
                     .sorted()
                     .collect(Collectors.toList());
 
-            fuzzyMatches.add(new FileResult(docMatch.docId, filePath, allPositions,
+            fuzzyMatches.add(new FileResult(docMatch.docId, null, allPositions,
                     score, false));
 
         }
 
         // מיון התוצאות הלא מדויקות לפי ציון
-        fuzzyMatches.sort((a, b) -> Double.compare(b.score, a.score));
+        List<FileResult> resolved = resolveDocuments(fuzzyMatches);
+        resolved.sort((a, b) -> Double.compare(b.score, a.score));
 
-        return new ArrayList<>(fuzzyMatches);
+        return resolved;
     }
 
     // חישוב ציון BM25 למסמך
@@ -153,7 +229,7 @@ public class IndexSearcherService implements AutoCloseable {
         );
     }
 
-    private List<FileResult> performSearch(String query, BPlusTreeSearcher searcher) throws IOException {
+    private List<FileResult> performSearch(String query, BPlusTreeSearcher searcher, int[] fileCategories) throws IOException {
         // נורמליזציה של החיפוש
         String normalizedQuery = TextAnalyzer.normalize(query);
 
@@ -169,19 +245,17 @@ public class IndexSearcherService implements AutoCloseable {
         }
 
         // המרה לתוצאות עם נתיבי קבצים
-        List<FileResult> fileResults = new ArrayList<>();
+        List<BPlusTreeSearcher.PostingEntry> postings = filterByFileType(result.postings, fileCategories);
+        List<FileResult> fileResults = new ArrayList<>(postings.size());
 
-        for (BPlusTreeSearcher.PostingEntry posting : result.postings) {
-            String filePath = pathResolver.getPath(posting.docId);
-            if (filePath != null) {
-                fileResults.add(new FileResult(posting.docId, filePath, posting.positions));
-            }
+        for (BPlusTreeSearcher.PostingEntry posting : postings) {
+            fileResults.add(new FileResult(posting.docId, null, posting.positions));
         }
 
-        return fileResults;
+        return resolveDocuments(fileResults);
     }
 
-    private List<FileResult> performExactSearch(String query, BPlusTreeSearcher searcher) throws IOException {
+    private List<FileResult> performExactSearch(String query, BPlusTreeSearcher searcher, int[] fileCategories) throws IOException {
         // נורמליזציה של החיפוש
         List<String> tokenizeQuery = TextAnalyzer.tokenize(query);
 
@@ -196,7 +270,7 @@ public class IndexSearcherService implements AutoCloseable {
 
         // אם יש רק מילה אחת, נחזור לחיפוש רגיל
         if (normalizedQuery.size() == 1) {
-            return performSearch(query, searcher);
+            return performSearch(query, searcher, fileCategories);
         }
 
         // קבלת מידע על כל המונחים
@@ -213,7 +287,16 @@ public class IndexSearcherService implements AutoCloseable {
 
         List<List<BPlusTreeSearcher.PostingEntry>> postings = searchResults.stream()
                 .map(r -> r.postings)
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        // מסמך בתוצאה מופיע בכל הרשימות - מספיק לסנן את הקצרה מביניהן
+        int shortest = 0;
+        for (int i = 1; i < postings.size(); i++) {
+            if (postings.get(i).size() < postings.get(shortest).size()) {
+                shortest = i;
+            }
+        }
+        postings.set(shortest, filterByFileType(postings.get(shortest), fileCategories));
 
         // מציאת מסמכים שמכילים את הביטוי המדויק באמצעות merge algorithm
         List<FileResult> fileResults = findExactMatchesWithMerge(postings, normalizedQuery.size());
@@ -276,10 +359,8 @@ public class IndexSearcherService implements AutoCloseable {
                 List<Integer> exactMatchPositions = findExactSequence(docPositions);
 
                 if (!exactMatchPositions.isEmpty()) {
-                    String filePath = pathResolver.getPath(maxDoc);
-                    if (filePath != null) {
-                        results.add(new FileResult(maxDoc, filePath, exactMatchPositions));
-                    }
+                    // הנתיב נפתר בסוף לכל ההתאמות יחד
+                    results.add(new FileResult(maxDoc, null, exactMatchPositions));
                 }
 
                 // התקדמות בכל הרשימות
@@ -300,7 +381,34 @@ public class IndexSearcherService implements AutoCloseable {
             }
         }
 
-        return results;
+        return resolveDocuments(results);
+    }
+
+    // השלמת הנתיבים ומאפייני הקובץ לכל התוצאות בקריאה אחת; תוצאה עם docId לא תקין מושמטת
+    private List<FileResult> resolveDocuments(List<FileResult> results) {
+        int[] docIds = new int[results.size()];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = results.get(i).docId;
+        }
+        String[] paths = pathResolver.getPaths(docIds);
+
+        List<FileResult> resolved = new ArrayList<>(results.size());
+        for (int i = 0; i < docIds.length; i++) {
+            if (paths[i] != null) {
+                FileResult result = results.get(i);
+                result.path = paths[i];
+                if (docValues != null && docValues.contains(docIds[i])) {
+                    result.hasMetadata = true;
+                    result.size = docValues.size(docIds[i]);
+                    result.lastModified = docValues.lastModified(docIds[i]);
+                    result.created = docValues.created(docIds[i]);
+                    result.extension = docValues.extension(docIds[i]);
+                    result.isDirectory = docValues.isDirectory(docIds[i]);
+                }
+                resolved.add(result);
+            }
+        }
+        return resolved;
     }
 
 
@@ -375,11 +483,18 @@ public class IndexSearcherService implements AutoCloseable {
         return exactMatches;
     }
 
+    // סטטיסטיקות מאגר העמודים המשותף
+    public PageBufferPool getPageBufferPool() {
+        return pageBufferPool;
+    }
+
     @Override
     public void close() throws IOException {
         if (nameSearcher != null) nameSearcher.close();
         if (contentSearcher != null) contentSearcher.close();
         if (pathResolver != null) pathResolver.close();
+        if (docValues != null) docValues.close();
+        if (fileTypes != null) fileTypes.close();
     }
 
 
@@ -403,6 +518,14 @@ public class IndexSearcherService implements AutoCloseable {
         public double score;
         public boolean isExactMatch;
 
+        // מאפייני הקובץ מזמן הבנייה (מקובץ ה-doc values) - hasMetadata=false כשאין
+        public boolean hasMetadata;
+        public long size;
+        public long lastModified;
+        public long created;
+        public String extension;
+        public boolean isDirectory;
+
         FileResult(int docId, String path, List<Integer> positions, double score, boolean isExactMatch) {
             this.docId = docId;
             this.path = path;
@@ -415,31 +538,6 @@ public class IndexSearcherService implements AutoCloseable {
             this(docId, filePath, positions, 0.0, true);
         }
     }
-    private static class PathResolver implements AutoCloseable {
-        private final RandomAccessFile pathsFile;
-
-        PathResolver(String pathsFilePath) throws IOException {
-            this.pathsFile = new RandomAccessFile(pathsFilePath, "r");
-        }
-
-        String getPath(int docId) throws IOException {
-            pathsFile.seek(docId);
-
-            try {
-                return pathsFile.readUTF();
-            } catch (EOFException e) {
-                return null; // DocId לא תקין
-            }
-        }
-
-        @Override
-        public void close() throws IOException {
-            if (pathsFile != null) {
-                pathsFile.close();
-            }
-        }
-    }
-
 
     public static void main(String[] args) {
         try (IndexSearcherService searchService = new IndexSearcherService()) {
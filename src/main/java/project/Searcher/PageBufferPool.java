@@ -0,0 +1,223 @@
+package project.Searcher;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// מאגר עמודים משותף לכל עצי ה-B+ (שמות ותוכן), מוגבל בגודלו בבתים.
+// פינוי ב-CLOCK (פגיעה רק מסמנת ביט - ללא נעילה), ומעליו מדיניות קבלה של TinyLFU:
+// עמוד חדש נכנס רק אם התדירות המשוערת שלו גבוהה מזו של הקורבן,
+// כך שסריקה חד-פעמית של עמודים לא מוחקת את העמודים החמים
+public class PageBufferPool {
+    private final long capacityBytes;
+    private final ConcurrentHashMap<Long, Frame> frames = new ConcurrentHashMap<>();
+    private final ArrayDeque<Frame> clock = new ArrayDeque<>();
+    private final FrequencySketch sketch;
+    private final AtomicInteger fileIds = new AtomicInteger(0);
+    private long usedBytes = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public PageBufferPool(long capacityBytes, int pageSize) {
+        this.capacityBytes = Math.max(0, capacityBytes);
+        long expectedPages = Math.max(16, this.capacityBytes / Math.max(1, pageSize));
+        this.sketch = new FrequencySketch((int) Math.min(expectedPages, 1 << 24));
+    }
+
+    // מזהה ייחודי לכל קובץ עץ שמשתמש במאגר
+    int registerFile() {
+        return fileIds.getAndIncrement();
+    }
+
+    byte[] get(int fileId, int pageId) {
+        long key = key(fileId, pageId);
+        sketch.increment(key);
+
+        Frame frame = frames.get(key);
+        if (frame != null) {
+            frame.referenced = true;
+            hits.increment();
+            return frame.data;
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(int fileId, int pageId, byte[] data) {
+        if (data.length > capacityBytes) {
+            return;
+        }
+        long key = key(fileId, pageId);
+
+        synchronized (clock) {
+            if (frames.containsKey(key)) {
+                return;
+            }
+
+            while (usedBytes + data.length > capacityBytes) {
+                Frame victim = nextVictim();
+                if (sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                    // המועמד קר יותר מהקורבן - לא נכנס למאגר
+                    clock.addLast(victim);
+                    rejections.increment();
+                    return;
+                }
+                frames.remove(victim.key);
+                usedBytes -= victim.data.length;
+                evictions.increment();
+            }
+
+            Frame frame = new Frame(key, data);
+            frames.put(key, frame);
+            clock.addLast(frame);
+            usedBytes += data.length;
+        }
+    }
+
+    // הוצאת כל העמודים של קובץ (בסגירת העץ)
+    void invalidate(int fileId) {
+        synchronized (clock) {
+            clock.removeIf(frame -> {
+                if ((int) (frame.key >>> 32) == fileId) {
+                    frames.remove(frame.key);
+                    usedBytes -= frame.data.length;
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    // מחוג ה-CLOCK: עמוד שסומן מקבל הזדמנות שנייה
+    private Frame nextVictim() {
+        while (true) {
+            Frame frame = clock.pollFirst();
+            if (!frame.referenced) {
+                return frame;
+            }
+            frame.referenced = false;
+            clock.addLast(frame);
+        }
+    }
+
+    private static long key(int fileId, int pageId) {
+        return ((long) fileId << 32) | (pageId & 0xFFFFFFFFL);
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getRejections() { return rejections.sum(); }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    public int getPageCount() {
+        return frames.size();
+    }
+
+    public long getUsedBytes() {
+        synchronized (clock) {
+            return usedBytes;
+        }
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageBufferPool{pages=%d, used=%d/%d bytes, hits=%d, misses=%d, hitRate=%.2f%%, evictions=%d, rejections=%d}",
+                getPageCount(), getUsedBytes(), capacityBytes, getHits(), getMisses(),
+                getHitRate() * 100, getEvictions(), getRejections());
+    }
+
+    private static class Frame {
+        final long key;
+        final byte[] data;
+        volatile boolean referenced;
+
+        Frame(long key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    // Count-Min Sketch עם 4 שורות ומונים של 4 ביט (עד 15), עם הזדקנות:
+    // אחרי מספר דגימות קבוע כל המונים מחולקים ב-2.
+    // עדכונים בלי נעילה - ערכים משוערים מספיקים להחלטת קבלה
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger size = new AtomicInteger(0);
+
+        FrequencySketch(int expectedEntries) {
+            int length = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+            this.table = new long[length];
+            this.mask = length - 1;
+            this.sampleSize = 10 * length;
+        }
+
+        int frequency(long key) {
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < 4; row++) {
+                frequency = Math.min(frequency, counter(key, row));
+            }
+            return frequency;
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int index = indexOf(key, row);
+                int shift = counterShift(key, row);
+                long word = table[index];
+                if (((word >>> shift) & 0xF) < 15) {
+                    table[index] = word + (1L << shift);
+                    added = true;
+                }
+            }
+            if (added && size.incrementAndGet() >= sampleSize) {
+                reset();
+            }
+        }
+
+        private synchronized void reset() {
+            if (size.get() < sampleSize) {
+                return;
+            }
+            for (int i = 0; i < table.length; i++) {
+                // חלוקה ב-2 של כל 16 המונים במילה
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            size.set(sampleSize / 2);
+        }
+
+        private int counter(long key, int row) {
+            return (int) ((table[indexOf(key, row)] >>> counterShift(key, row)) & 0xF);
+        }
+
+        private int indexOf(long key, int row) {
+            long hash = (key + SEEDS[row]) * SEEDS[row];
+            hash ^= hash >>> 32;
+            return (int) hash & mask;
+        }
+
+        // אחד מ-16 המונים בני 4 הביטים שבמילה
+        private int counterShift(long key, int row) {
+            long hash = key * SEEDS[(row + 1) & 3];
+            return (int) ((hash >>> 60) << 2);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package project.Searcher;
+
+import project.Common.PathStoreFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// פענוח docId לנתיב מתוך paths.dat וטבלת ה-offsets, שניהם ממופים לזיכרון (הפורמטים ב-PathStoreFormat).
+// הקריאה היא בגישה אבסולוטית בלבד (בלי position משותף), כך שאין צורך בסנכרון בין חיפושים מקבילים.
+// קובץ גדול ממופה במקטעים; כל מקטע של paths.dat חופף לבא אחריו באורך הרשומה המקסימלי,
+// כך שרשומה שמתחילה במקטע נמצאת בו בשלמותה
+class PathResolver implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final int MAX_RECORD_LENGTH = 10 + PathStoreFormat.MAX_UTF_LENGTH;
+
+    private final FileChannel pathsChannel;
+    private final FileChannel offsetsChannel;
+    private final MappedByteBuffer[] pathSegments;
+    private final MappedByteBuffer[] offsetSegments;
+    private final long pathsLength;
+    private final short format;
+    private final int documentCount;
+
+    // DIRECTORY_TREE: טבלת התיקיות נטענת לזיכרון - תיקיית האב וקטע השם של כל תיקייה
+    private final int[] directoryParents;
+    private final String[] directoryNames;
+
+    PathResolver(String pathsFilePath, String offsetsFilePath) throws IOException {
+        this.pathsChannel = FileChannel.open(Path.of(pathsFilePath), StandardOpenOption.READ);
+        try {
+            this.offsetsChannel = FileChannel.open(Path.of(offsetsFilePath), StandardOpenOption.READ);
+        } catch (IOException e) {
+            pathsChannel.close();
+            throw e;
+        }
+
+        this.pathsLength = pathsChannel.size();
+        this.pathSegments = map(pathsChannel, MAX_RECORD_LENGTH);
+        this.offsetSegments = map(offsetsChannel, 0);
+        long offsetEntries = offsetsChannel.size() / PathStoreFormat.OFFSET_ENTRY_SIZE;
+
+        // קובץ FLAT מתחיל ישר ברשומה ולכן ה-offset הראשון בו הוא 0
+        boolean tree = pathsLength >= PathStoreFormat.HEADER_SIZE
+                && pathSegments[0].getInt(0) == PathStoreFormat.MAGIC
+                && (offsetEntries == 0 || offsetOf(0) == PathStoreFormat.HEADER_SIZE);
+
+        if (tree) {
+            this.format = PathStoreFormat.DIRECTORY_TREE;
+            this.documentCount = (int) Math.min(pathSegments[0].getInt(PathStoreFormat.DOC_COUNT_OFFSET),
+                    offsetEntries * PathStoreFormat.BLOCK_SIZE);
+
+            long tableOffset = pathSegments[0].getLong(PathStoreFormat.DIRECTORY_TABLE_OFFSET);
+            try {
+                Cursor cursor = new Cursor(tableOffset, 0);
+                int count = cursor.readVInt();
+                this.directoryParents = new int[count];
+                this.directoryNames = new String[count];
+                for (int i = 0; i < count; i++) {
+                    cursor.relocate();
+                    int parent = cursor.readVInt() - 1;
+                    if (parent >= i) {
+                        throw new IllegalArgumentException("Directory " + i + " before its parent");
+                    }
+                    directoryParents[i] = parent;
+                    directoryNames[i] = cursor.readUTF(cursor.readVInt());
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw new IOException("Corrupt directory table in " + pathsFilePath, e);
+            }
+        } else {
+            this.format = PathStoreFormat.FLAT;
+            this.documentCount = (int) Math.min(offsetEntries, Integer.MAX_VALUE);
+            this.directoryParents = null;
+            this.directoryNames = null;
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, int overlap) throws IOException {
+        long size = channel.size();
+        int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i * SEGMENT_SIZE;
+            long length = Math.min(size - start, (long) SEGMENT_SIZE + overlap);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+        }
+        return segments;
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    // נתיב של מסמך בודד - null ל-docId לא תקין
+    String getPath(int docId) {
+        if (docId < 0 || docId >= documentCount) {
+            return null;
+        }
+        Cursor cursor = seek(docId);
+        return cursor == null ? null : readPath(cursor, docId);
+    }
+
+    // פענוח של הרבה מסמכים בקריאה אחת - המערך המוחזר מקביל ל-docIds (null ל-docId לא תקין).
+    // ה-offsets עולים עם ה-docId, כך שמעבר בסדר docId קורא את paths.dat ברצף,
+    // ו-docId קרובים באותו בלוק ממשיכים מהרשומה הקודמת בלי לחזור לתחילת הבלוק
+    String[] getPaths(int[] docIds) {
+        String[] paths = new String[docIds.length];
+
+        // docId בחצי העליון ומיקום במערך בחצי התחתון - מיון אחד בלי boxing
+        long[] order = new long[docIds.length];
+        int valid = 0;
+        for (int i = 0; i < docIds.length; i++) {
+            int docId = docIds[i];
+            if (docId >= 0 && docId < documentCount) {
+                order[valid++] = ((long) docId << 32) | i;
+            }
+        }
+        Arrays.sort(order, 0, valid);
+
+        int reach = format == PathStoreFormat.DIRECTORY_TREE ? PathStoreFormat.BLOCK_SIZE : 1;
+        Cursor cursor = null;
+        int previousDocId = -1;
+        String previousPath = null;
+        for (int k = 0; k < valid; k++) {
+            int docId = (int) (order[k] >>> 32);
+            int index = (int) order[k];
+            if (docId != previousDocId) {
+                if (cursor == null || cursor.docId > docId || docId - cursor.docId >= reach) {
+                    cursor = seek(docId);
+                }
+                previousPath = cursor == null ? null : readPath(cursor, docId);
+                previousDocId = docId;
+            }
+            paths[index] = previousPath;
+        }
+        return paths;
+    }
+
+    private long offsetOf(int entry) {
+        long position = (long) entry * PathStoreFormat.OFFSET_ENTRY_SIZE;
+        return offsetSegments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    // מיקום על הרשומה של docId (FLAT) או על תחילת הבלוק שלו (DIRECTORY_TREE)
+    private Cursor seek(int docId) {
+        boolean tree = format == PathStoreFormat.DIRECTORY_TREE;
+        int entry = tree ? docId / PathStoreFormat.BLOCK_SIZE : docId;
+        long offset = offsetOf(entry);
+        if (offset < 0 || offset >= pathsLength) {
+            return null;
+        }
+        return new Cursor(offset, tree ? entry * PathStoreFormat.BLOCK_SIZE : docId);
+    }
+
+    // קריאת הרשומה של docId מהסמן (שנמצא עליה או לפניה באותו בלוק) - null לרשומה פגומה
+    private String readPath(Cursor cursor, int docId) {
+        try {
+            if (format == PathStoreFormat.FLAT) {
+                cursor.relocate();
+                int utfLength = cursor.readUnsignedShort();
+                String path = cursor.readUTF(utfLength);
+                cursor.docId++;
+                return path;
+            }
+
+            while (cursor.docId < docId) {
+                cursor.relocate();
+                cursor.readVInt();
+                cursor.skip(cursor.readVInt());
+                cursor.docId++;
+            }
+            cursor.relocate();
+            int directoryId = cursor.readVInt() - 1;
+            String name = cursor.readUTF(cursor.readVInt());
+            cursor.docId++;
+            return directoryId < 0 ? name : directoryPath(directoryId).append(name).toString();
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null; // רשומה פגומה
+        }
+    }
+
+    // הרכבת נתיב התיקייה מהשורש - שרשור קטעי השם לאורך שרשרת האבות
+    private StringBuilder directoryPath(int directoryId) {
+        int depth = 0;
+        int length = 0;
+        for (int d = directoryId; d >= 0; d = directoryParents[d]) {
+            depth++;
+            length += directoryNames[d].length();
+        }
+        int[] chain = new int[depth];
+        for (int d = directoryId, i = depth - 1; d >= 0; d = directoryParents[d], i--) {
+            chain[i] = d;
+        }
+
+        StringBuilder path = new StringBuilder(length + 32);
+        for (int d : chain) {
+            path.append(directoryNames[d]);
+        }
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            pathsChannel.close();
+        } finally {
+            offsetsChannel.close();
+        }
+    }
+
+    // סמן קריאה על paths.dat. כל רשומה נקראת מהמקטע שהיא מתחילה בו (relocate בתחילת כל רשומה)
+    private final class Cursor {
+        private long base;
+        private ByteBuffer segment;
+        private int position;
+        // ה-docId של הרשומה שהסמן עומד עליה
+        int docId;
+
+        Cursor(long offset, int docId) {
+            this.base = offset - offset % SEGMENT_SIZE;
+            this.segment = pathSegments[(int) (offset / SEGMENT_SIZE)];
+            this.position = (int) (offset % SEGMENT_SIZE);
+            this.docId = docId;
+        }
+
+        void relocate() {
+            if (position >= SEGMENT_SIZE) {
+                long offset = base + position;
+                base = offset - offset % SEGMENT_SIZE;
+                segment = pathSegments[(int) (offset / SEGMENT_SIZE)];
+                position = (int) (offset % SEGMENT_SIZE);
+            }
+        }
+
+        int readUnsignedShort() {
+            int value = ((segment.get(position) & 0xFF) << 8) | (segment.get(position + 1) & 0xFF);
+            position += 2;
+            return value;
+        }
+
+        int readVInt() {
+            byte b = segment.get(position++);
+            int value = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = segment.get(position++);
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+
+        void skip(int bytes) {
+            position += bytes;
+        }
+
+        // פענוח UTF-8 מותאם (הפורמט של writeUTF) באורך הנתון
+        String readUTF(int utfLength) {
+            int end = position + utfLength;
+            if (end > segment.limit()) {
+                throw new IndexOutOfBoundsException("Record past end of file");
+            }
+            char[] chars = new char[utfLength];
+            int length = 0;
+
+            // רוב הנתיבים ב-ASCII - לולאה מהירה עד התו הראשון שאינו ASCII
+            while (position < end) {
+                byte b = segment.get(position);
+                if (b < 0) {
+                    break;
+                }
+                chars[length++] = (char) b;
+                position++;
+            }
+
+            while (position < end) {
+                int c = segment.get(position) & 0xFF;
+                if (c < 0x80) {
+                    chars[length++] = (char) c;
+                    position++;
+                } else if ((c & 0xE0) == 0xC0 && position + 2 <= end) {
+                    int c2 = segment.get(position + 1);
+                    chars[length++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    position += 2;
+                } else if ((c & 0xF0) == 0xE0 && position + 3 <= end) {
+                    int c2 = segment.get(position + 1);
+                    int c3 = segment.get(position + 2);
+                    chars[length++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    position += 3;
+                } else {
+                    throw new IllegalArgumentException("Malformed path record");
+                }
+            }
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package project.Searcher;
+
+import project.Common.PostingsFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// קורא רשימות Postings: קריאה מיקומית אחת של כל טווח הבתים של המונח,
+// ופענוח מהזיכרון למערכי int פרימיטיביים (במקום readInt נפרד לכל ערך)
+class PostingsReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final short version;
+
+    PostingsReader(String postingsFilePath, short version) throws IOException {
+        this.channel = FileChannel.open(Path.of(postingsFilePath), StandardOpenOption.READ);
+        this.version = version;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    // קריאת הטווח [offset, endOffset) ופענוחו
+    DecodedPostings read(long offset, long endOffset, int numDocs) throws IOException {
+        byte[] data = readRange(offset, endOffset);
+
+        if (version >= PostingsFormat.V2) {
+            return decodeCompressed(data);
+        }
+        return decodeRaw(data, numDocs);
+    }
+
+    private byte[] readRange(long offset, long endOffset) throws IOException {
+        int length = (int) (endOffset - offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        // קריאה מיקומית - לא משנה את מצב הערוץ ולכן בטוחה לשימוש מקבילי
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Postings range ends past end of file: " + endOffset);
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    // פורמט V1: docId, count, positions - int של 4 בתים (big-endian)
+    private DecodedPostings decodeRaw(byte[] data, int numDocs) {
+        int[] docIds = new int[numDocs];
+        int[] positionStarts = new int[numDocs + 1];
+        int[] positions = new int[(data.length / 4) - 2 * numDocs];
+
+        int cursor = 0;
+        int positionCount = 0;
+        for (int i = 0; i < numDocs; i++) {
+            docIds[i] = readInt(data, cursor);
+            int numPositions = readInt(data, cursor + 4);
+            cursor += 8;
+
+            positionStarts[i] = positionCount;
+            for (int j = 0; j < numPositions; j++) {
+                positions[positionCount++] = readInt(data, cursor);
+                cursor += 4;
+            }
+        }
+        positionStarts[numDocs] = positionCount;
+
+        return new DecodedPostings(docIds, positionStarts, positions);
+    }
+
+    // פורמט V2: numDocs, ולכל מסמך הפרש docId, count והפרשי מיקומים - ב-VByte
+    private DecodedPostings decodeCompressed(byte[] data) {
+        int[] cursor = {0};
+        int numDocs = readVInt(data, cursor);
+
+        int[] docIds = new int[numDocs];
+        int[] positionStarts = new int[numDocs + 1];
+        // כל ערך תופס לפחות בית אחד, ולכן זה חסם עליון למספר המיקומים
+        int[] positions = new int[data.length];
+
+        int docId = 0;
+        int positionCount = 0;
+        for (int i = 0; i < numDocs; i++) {
+            docId += readVInt(data, cursor);
+            docIds[i] = docId;
+            int numPositions = readVInt(data, cursor);
+
+            positionStarts[i] = positionCount;
+            int position = 0;
+            for (int j = 0; j < numPositions; j++) {
+                position += readVInt(data, cursor);
+                positions[positionCount++] = position;
+            }
+        }
+        positionStarts[numDocs] = positionCount;
+
+        return new DecodedPostings(docIds, positionStarts, positions);
+    }
+
+    private static int readInt(byte[] data, int index) {
+        return ((data[index] & 0xFF) << 24)
+                | ((data[index + 1] & 0xFF) << 16)
+                | ((data[index + 2] & 0xFF) << 8)
+                | (data[index + 3] & 0xFF);
+    }
+
+    private static int readVInt(byte[] data, int[] cursor) {
+        int index = cursor[0];
+        byte b = data[index++];
+        int value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = data[index++];
+            value |= (b & 0x7F) << shift;
+        }
+        cursor[0] = index;
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // רשימת postings מפוענחת: המיקומים של מסמך i הם positions[positionStarts[i] .. positionStarts[i+1])
+    static class DecodedPostings {
+        final int[] docIds;
+        final int[] positionStarts;
+        final int[] positions;
+
+        DecodedPostings(int[] docIds, int[] positionStarts, int[] positions) {
+            this.docIds = docIds;
+            this.positionStarts = positionStarts;
+            this.positions = positions;
+        }
+    }
+}
@@ -6,14 +6,15 @@ import java.util.*;
 // מנוע דירוג תוצאות חיפוש
 public class RankingEngine {
 
-    private final Map<Integer, Integer> docsLen;
+    // אורך כל מסמך לפי docId (ה-docId רציפים)
+    private final int[] docsLen;
     private final double avgDocLength;
     private final int docsCount;
     private final long totalLength;
     private final double k1 = 1.5;
     private final double b = 0.75;
 
-    public RankingEngine(Integer documentCount, Long totalLength, Map<Integer, Integer> documentLengths) {
+    public RankingEngine(Integer documentCount, Long totalLength, int[] documentLengths) {
         this.docsCount = documentCount;
         this.totalLength = totalLength;
         this.avgDocLength = (double) this.totalLength / this.docsCount;
@@ -36,16 +37,20 @@ public class RankingEngine {
             if (tf == 0 || df == 0) continue;
 
             double idf = Math.log(1 + (docsCount - df + 0.5) / (df + 0.5));
-            double norm = tf * (k1 + 1) / (tf + k1 * (1 - b + b * (docsLen.get(docId) / avgDocLength)));
+            double norm = tf * (k1 + 1) / (tf + k1 * (1 - b + b * (docLength(docId) / avgDocLength)));
 
             score += idf * norm;
-            //System.out.println("docId: " + docId + ", tf: " + tf + ", docLen: " + docsLen.get(docId) + ", score: " + score);
+            //System.out.println("docId: " + docId + ", tf: " + tf + ", docLen: " + docLength(docId) + ", score: " + score);
         }
 
         return score;
     }
 
 
+    private int docLength(int docId) {
+        return docId >= 0 && docId < docsLen.length ? docsLen[docId] : 0;
+    }
+
     // חישוב בונוס קרבה בין מונחים
     public double calculateProximityBonus(Map<String, List<Integer>> termPositions) {
         if (termPositions.size() < 2) {
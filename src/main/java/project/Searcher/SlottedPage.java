@@ -0,0 +1,120 @@
+package project.Searcher;
+
+import project.Builder.UtfEncoder;
+import project.Common.TreePageFormat;
+
+// גישה ישירה לעמודי SLOTTED בקובץ העץ - חיפוש בינארי על בתי העמוד בלי ליצור String או רשימות.
+// המפתחות שמורים ב-writeUTF (אורך + UTF-8 מותאם), וסדר השוואת הבתים כ-unsigned זהה לסדר
+// של String.compareTo שבו העץ נבנה (תווי surrogate מקודדים בנפרד; למעט התו \u0000 שלא מופיע במונחים)
+//   עלה:   [type][reserved][numEntries][nextPageId][slots...] ... [len][key][numDocs int][offset long]
+//   פנימי: [type][reserved][numKeys][firstPointer][slots...] ... [len][key][child int]
+final class SlottedPage {
+    static final byte PAGE_TYPE_INTERNAL = 1;
+    static final byte PAGE_TYPE_LEAF = 2;
+
+    private SlottedPage() {
+    }
+
+    // קידוד מונח החיפוש פעם אחת לאותו קידוד של writeUTF
+    static byte[] encodeKey(String term) {
+        return UtfEncoder.encode(term);
+    }
+
+    static byte pageType(byte[] page) {
+        return page[0];
+    }
+
+    static int count(byte[] page) {
+        return readUnsignedShort(page, 2);
+    }
+
+    // nextPageId בעלה, firstPointer בעמוד פנימי
+    static int headerPointer(byte[] page) {
+        return readInt(page, 4);
+    }
+
+    // מיקום הרשומה ה-slot בעמוד
+    static int entryOffset(byte[] page, int slot) {
+        return readUnsignedShort(page, TreePageFormat.PAGE_HEADER_SIZE + slot * TreePageFormat.SLOT_SIZE);
+    }
+
+    // חיפוש מדויק בעלה - מחזיר את מספר ה-slot או -1
+    static int findInLeaf(byte[] page, byte[] key) {
+        int low = 0;
+        int high = count(page) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(page, entryOffset(page, mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // הילד שאחראי על המפתח: הילד של המפתח האחרון שקטן או שווה לו, או firstPointer
+    static int findChild(byte[] page, byte[] key) {
+        int low = 0;
+        int high = count(page);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(page, entryOffset(page, mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return headerPointer(page);
+        }
+        int entry = entryOffset(page, low - 1);
+        return readInt(page, valueOffset(page, entry));
+    }
+
+    static int leafNumDocs(byte[] page, int slot) {
+        return readInt(page, valueOffset(page, entryOffset(page, slot)));
+    }
+
+    static long leafPostingsOffset(byte[] page, int slot) {
+        return readLong(page, valueOffset(page, entryOffset(page, slot)) + 4);
+    }
+
+    // השוואת המפתח השמור ברשומה למפתח החיפוש (בתים כ-unsigned)
+    private static int compareKey(byte[] page, int entry, byte[] key) {
+        int length = readUnsignedShort(page, entry);
+        int start = entry + 2;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int a = page[start + i] & 0xFF;
+            int b = key[i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length;
+    }
+
+    // מיקום הערכים שאחרי המפתח ברשומה
+    private static int valueOffset(byte[] page, int entry) {
+        return entry + 2 + readUnsignedShort(page, entry);
+    }
+
+    private static int readUnsignedShort(byte[] data, int index) {
+        return ((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] data, int index) {
+        return ((data[index] & 0xFF) << 24)
+                | ((data[index + 1] & 0xFF) << 16)
+                | ((data[index + 2] & 0xFF) << 8)
+                | (data[index + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] data, int index) {
+        return ((long) readInt(data, index) << 32) | (readInt(data, index + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -20,10 +20,7 @@ import java.util.List;
 public class SearchController {
     public final SearchModel searchModel;
     private final SearchEngineModel searchEngineModel;
-    private Task<Void> currentSearchTask;
-
-    // שמירת התוצאות הלא מסוננות לצורך סינון בזמן אמת
-    private List<SearchResult> lastUnfilteredResults;
+    private Task<List<SearchResult>> currentSearchTask;
 
     public SearchController() {
         this.searchModel = SearchModel.getInstance();
@@ -34,9 +31,13 @@ public class SearchController {
     }
 
     private void setupRealTimeFiltering() {
-        // listener לשינוי סוג קובץ
+        // listener לשינוי סוג קובץ - הסינון נעשה באינדקס, לכן החיפוש מורץ שוב עם הסינון החדש
+        // (גם אם חיפוש קודם עדיין רץ - הוא מבוטל והתוצאות שלו לא יוצגו)
         searchModel.fileTypeProperty().addListener((obs, oldVal, newVal) -> {
-            applyCurrentFilters();
+            if (!searchModel.getSearchQuery().isEmpty()) {
+                stopCurrentSearch();
+                performSearch();
+            }
         });
 
 
@@ -45,65 +46,47 @@ public class SearchController {
 //        });
     }
 
-    private void applyCurrentFilters() {
-        if (lastUnfilteredResults != null && !lastUnfilteredResults.isEmpty()) {
-            List<SearchResult> filteredResults = filterByFileType(lastUnfilteredResults, searchModel.getFileType());
-
-            Platform.runLater(() -> {
-                searchModel.clearAndSetSearchResults(filteredResults);
-                searchModel.setResultsCount(filteredResults.size());
-
-                String statusMessage = filteredResults.isEmpty() ?
-                        "לא נמצאו תוצאות אחרי סינון" :
-                        "מוצגות " + filteredResults.size() + " תוצאות מסוננות מתוך " + lastUnfilteredResults.size();
-
-                searchModel.setStatusMessage(statusMessage);
-            });
-        }
-    }
-
-
     public void performSearch() {
         // עדכון מודל החיפוש
         searchModel.setStatusMessage("מחפש...");
         searchModel.clearAndSetSearchResults(new ArrayList<>());
         searchModel.setResultsCount(0);
 
+        // השאילתה וסוג הקובץ נקראים פעם אחת כאן (ב-FX thread), כך שהחיפוש והודעת הסטטוס משתמשים באותם ערכים
+        final String query = searchModel.getSearchQuery();
+        final FileType fileType = searchModel.getFileType();
+
         // יצירת משימת חיפוש ברקע
-        currentSearchTask = new Task<Void>() {
+        currentSearchTask = new Task<List<SearchResult>>() {
             @Override
-            protected Void call() throws Exception {
+            protected List<SearchResult> call() throws Exception {
+                final List<SearchResult> results;
                 try {
-
-                    performActualSearch();
-                    // סינון לפי סוג קובץ אם נדרש
-                    List<SearchResult> filteredResults = lastUnfilteredResults;
-                    if (searchModel.getFileType() != FileType.ALL) {
-                        filteredResults = filterByFileType(lastUnfilteredResults, searchModel.getFileType());
-                    }
-
-                    final List<SearchResult> finalDocResults = new ArrayList<>(filteredResults);
-                    Platform.runLater(() -> {
-                        searchModel.clearAndSetSearchResults(finalDocResults);
-                        searchModel.setResultsCount(finalDocResults.size());
-
-                        String statusMessage = finalDocResults.isEmpty() ?
-                                "לא נמצאו תוצאות עבור: " + searchModel.getSearchQuery() :
-                                lastUnfilteredResults.size() == finalDocResults.size() ?
-                                        "נמצאו " + finalDocResults.size() + " תוצאות עבור: " + searchModel.getSearchQuery() :
-                                        "מוצגות " + finalDocResults.size() + " תוצאות מסוננות מתוך " + lastUnfilteredResults.size() + " עבור: " + searchModel.getSearchQuery();
-                        searchModel.setStatusMessage(statusMessage);
+                    results = performActualSearch(query, fileType);
+                } catch (IOException e) {
+                    applyIfCurrent(this, () -> {
+                        searchModel.setStatusMessage("לא קיים אינדקס. יש לבנות אינדקס לפני חיפוש.");
                     });
-
-
-
+                    return null;
                 } catch (Exception e) {
-                    Platform.runLater(() -> {
+                    applyIfCurrent(this, () -> {
                         searchModel.setStatusMessage("שגיאה בחיפוש: " + e.getMessage());
                     });
                     throw e;
                 }
-                return null;
+
+                applyIfCurrent(this, () -> {
+                    searchModel.clearAndSetSearchResults(results);
+                    searchModel.setResultsCount(results.size());
+
+                    String statusMessage = results.isEmpty() ?
+                            "לא נמצאו תוצאות עבור: " + query :
+                            fileType == FileType.ALL ?
+                                    "נמצאו " + results.size() + " תוצאות עבור: " + query :
+                                    "נמצאו " + results.size() + " תוצאות מסוג " + fileType.getDisplayName() + " עבור: " + query;
+                    searchModel.setStatusMessage(statusMessage);
+                });
+                return results;
             }
         };
 
@@ -113,60 +96,35 @@ public class SearchController {
         searchThread.start();
     }
 
+    // עדכון הממשק רק אם המשימה היא עדיין החיפוש הנוכחי ולא בוטלה - משימה ישנה שהסתיימה מאוחר לא דורסת את החדשה
+    private void applyIfCurrent(Task<?> task, Runnable update) {
+        Platform.runLater(() -> {
+            if (task == currentSearchTask && !task.isCancelled()) {
+                update.run();
+            }
+        });
+    }
 
-    private void performActualSearch() {
-        System.out.println("Starting search for: " + searchModel.getSearchQuery());
-        List<SearchResult> results = new ArrayList<>();
-        try {
-            if(searchModel.isSearchInContent() && searchModel.isExactMatch())
-                results = searchEngineModel.searchInContentExactMatch(searchModel.getSearchQuery());
-
-            else if(searchModel.isSearchInContent() && (!searchModel.isExactMatch()))
-                results = searchEngineModel.searchInContentNOExactMatch(searchModel.getSearchQuery());
 
-            else if((!searchModel.isSearchInContent()) && searchModel.isExactMatch())
-                results = searchEngineModel.searchInNameExactMatch(searchModel.getSearchQuery());
+    private List<SearchResult> performActualSearch(String query, FileType fileType) throws IOException {
+        System.out.println("Starting search for: " + query);
+        List<SearchResult> results = new ArrayList<>();
 
-            else if((!searchModel.isSearchInContent()) && (!searchModel.isExactMatch()))
-                results = searchEngineModel.searchInNameNOExactMatch(searchModel.getSearchQuery());
+        if(searchModel.isSearchInContent() && searchModel.isExactMatch())
+            results = searchEngineModel.searchInContentExactMatch(query, fileType);
 
+        else if(searchModel.isSearchInContent() && (!searchModel.isExactMatch()))
+            results = searchEngineModel.searchInContentNOExactMatch(query, fileType);
 
-            lastUnfilteredResults = new ArrayList<>(results);
-            System.out.println("Search completed. Found " + results.size() + " results.\n");
-        } catch (IOException e) {
-            Platform.runLater(() -> {
-                searchModel.setStatusMessage("לא קיים אינדקס. יש לבנות אינדקס לפני חיפוש.");
-            });
-        }
-    }
+        else if((!searchModel.isSearchInContent()) && searchModel.isExactMatch())
+            results = searchEngineModel.searchInNameExactMatch(query, fileType);
 
-    private List<SearchResult> filterByFileType(List<SearchResult> results, FileType fileType) {
-        return results.stream()
-                .filter(result -> matchesFileType(result, fileType))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-    }
+        else if((!searchModel.isSearchInContent()) && (!searchModel.isExactMatch()))
+            results = searchEngineModel.searchInNameNOExactMatch(query, fileType);
 
 
-    private boolean matchesFileType(SearchResult result, FileType fileType) {
-        FileType resultType = FileType.getFileType(new File(result.getFullPath()));
-
-        switch (fileType) {
-            case TEXT:
-                return resultType == FileType.TEXT;
-            case IMAGE:
-                return resultType == FileType.IMAGE;
-            case DOCUMENT:
-                return resultType == FileType.DOCUMENT || resultType == FileType.TEXT;
-            case VIDEO:
-                return resultType == FileType.VIDEO;
-            case AUDIO:
-                return resultType == FileType.AUDIO;
-            case FOLDER:
-                return resultType == FileType.FOLDER;
-            case ALL:
-            default:
-                return true;
-        }
+        System.out.println("Search completed. Found " + results.size() + " results.\n");
+        return new ArrayList<>(results);
     }
 
     public void openFile(String filePath) {
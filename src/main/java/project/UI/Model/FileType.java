@@ -2,6 +2,8 @@
 
 package project.UI.Model;
 
+import project.Common.FileCategory;
+
 import java.io.File;
 
 /**
@@ -41,12 +43,6 @@ public enum FileType {
         return null;
     }
 
-    private static final String TEXT_EXTENSIONS = "txt|csv|rtf|log|md|json|xml|html|css|js|py|java|c|cpp|h|doc|docx|xlsx|xls|odt";
-    private static final String IMAGE_EXTENSIONS = "jpg|jpeg|png|gif|bmp|svg|webp|tiff|ico|raw";
-    private static final String DOCUMENT_EXTENSIONS = "pdf|doc|docx|ppt|pptx|xls|xlsx|odt|ods|odp";
-    private static final String VIDEO_EXTENSIONS = "mp4|avi|mov|wmv|flv|mkv|webm|m4v|3gp|mpg|mpeg";
-    private static final String AUDIO_EXTENSIONS = "mp3|wav|flac|aac|ogg|wma|m4a|opus";
-
     /**
      * בדיקה אם קובץ שייך לסוג זה לפי הסיומת
      * @param fileName שם הקובץ
@@ -79,28 +75,47 @@ public enum FileType {
 
 
     public static FileType getFileType(File file) {
-        // אם זו תיקייה, מחזיר FOLDER
-        if (file.isDirectory()) {
-            return FOLDER;
-        }
-
-        // בדיקה לפי סיומת הקובץ
+        // אותה קביעה כמו בזמן הבנייה (FileCategory)
         String extension = getFileExtension(file.getName()).toLowerCase();
-
-        if (extension.matches(TEXT_EXTENSIONS)) {
-            return TEXT;
-        } else if (extension.matches(IMAGE_EXTENSIONS)) {
-            return IMAGE;
-        } else if (extension.matches(DOCUMENT_EXTENSIONS)) {
-            return DOCUMENT;
-        } else if (extension.matches(VIDEO_EXTENSIONS)) {
-            return VIDEO;
-        } else if (extension.matches(AUDIO_EXTENSIONS)) {
-            return AUDIO;
+        switch (FileCategory.of(extension, file.isDirectory())) {
+            case FileCategory.FOLDER:
+                return FOLDER;
+            case FileCategory.IMAGE:
+                return IMAGE;
+            case FileCategory.DOCUMENT:
+                return DOCUMENT;
+            case FileCategory.VIDEO:
+                return VIDEO;
+            case FileCategory.AUDIO:
+                return AUDIO;
+            case FileCategory.TEXT:
+            default:
+                return TEXT;
         }
+    }
 
-        // אם לא נמצא התאמה, מחזיר TEXT כברירת מחדל
-        return TEXT;
+    /**
+     * הקטגוריות באינדקס שהסינון לפי סוג זה מקבל (מסמכים כוללים גם קבצי טקסט)
+     * @return הקטגוריות, או null אם אין סינון
+     */
+    public int[] getCategories() {
+        switch (this) {
+            case FOLDER:
+                return new int[]{FileCategory.FOLDER};
+            case TEXT:
+                return new int[]{FileCategory.TEXT};
+            case IMAGE:
+                return new int[]{FileCategory.IMAGE};
+            case DOCUMENT:
+                return new int[]{FileCategory.DOCUMENT, FileCategory.TEXT};
+            case VIDEO:
+                return new int[]{FileCategory.VIDEO};
+            case AUDIO:
+                return new int[]{FileCategory.AUDIO};
+            case ALL:
+            default:
+                return null;
+        }
     }
 
 
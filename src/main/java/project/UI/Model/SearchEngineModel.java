@@ -1,5 +1,6 @@
 package project.UI.Model;
 
+import project.Common.Config;
 import project.Common.ProjectLogger;
 import project.Searcher.IndexSearcherService;
 
@@ -39,28 +40,29 @@ public class SearchEngineModel {
     }
 
 
-    public List<SearchResult> searchInContentExactMatch(String query) throws IOException {
+    // הסינון לפי סוג קובץ נעשה באינדקס (חיתוך עם רשימות הקטגוריות) לפני בניית התוצאות
+    public List<SearchResult> searchInContentExactMatch(String query, FileType fileType) throws IOException {
         List<IndexSearcherService.FileResult> serviceResults;
-        serviceResults = searchService.searchInContent(query);
+        serviceResults = searchService.searchInContent(query, fileType.getCategories());
 
         return convertToUIResults(serviceResults);
     }
 
-    public List<SearchResult> searchInNameExactMatch(String query) throws IOException {
+    public List<SearchResult> searchInNameExactMatch(String query, FileType fileType) throws IOException {
         List<IndexSearcherService.FileResult> serviceResults;
-        serviceResults = searchService.searchInFileNames(query);
+        serviceResults = searchService.searchInFileNames(query, fileType.getCategories());
 
         return convertToUIResults(serviceResults);
     }
-    public List<SearchResult> searchInContentNOExactMatch(String query) throws IOException {
+    public List<SearchResult> searchInContentNOExactMatch(String query, FileType fileType) throws IOException {
         List<IndexSearcherService.FileResult> serviceResults;
-        serviceResults = searchService.searchInContentWithRanking(query);
+        serviceResults = searchService.searchInContentWithRanking(query, fileType.getCategories());
 
         return convertToUIResults(serviceResults);
     }
-    public List<SearchResult> searchInNameNOExactMatch(String query) throws IOException {
+    public List<SearchResult> searchInNameNOExactMatch(String query, FileType fileType) throws IOException {
         List<IndexSearcherService.FileResult> serviceResults;
-        serviceResults = searchService.searchInFileNamesWithRanking(query);
+        serviceResults = searchService.searchInFileNamesWithRanking(query, fileType.getCategories());
 
         return convertToUIResults(serviceResults);
     }
@@ -69,25 +71,28 @@ public class SearchEngineModel {
     private List<SearchResult> convertToUIResults(List<IndexSearcherService.FileResult> serviceResults) {
         List<SearchResult> searchResults = new ArrayList<>();
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+        boolean validate = Config.getInstance().isResultValidationEnabled();
 
         for (IndexSearcherService.FileResult fileResult : serviceResults) {
             try {
                 File file = new File(fileResult.path);
 
-                // בדיקה שהקובץ עדיין קיים
-                if (!file.exists()) {
+                // בדיקה (אופציונלית) שהקובץ עדיין קיים - פנייה למערכת הקבצים לכל תוצאה
+                if ((validate || !fileResult.hasMetadata) && !file.exists()) {
                     continue;
                 }
 
                 String name = file.getName();
                 String parentPath = file.getParent() != null ? file.getParent() : "";
 
-                // חישוב גודל הקובץ
-                String size = formatFileSize(file.length());
+                // גודל ותאריכים מזמן הבנייה; באינדקס ישן בלי doc values - ממערכת הקבצים
+                long length = fileResult.hasMetadata ? fileResult.size : file.length();
+                long lastModified = fileResult.hasMetadata ? fileResult.lastModified : file.lastModified();
+                long created = fileResult.hasMetadata ? fileResult.created : lastModified;
 
-                // קבלת תאריכים
-                String modified = dateFormat.format(new Date(file.lastModified()));
-                String created = modified;
+                String size = formatFileSize(length);
+                String modified = dateFormat.format(new Date(lastModified));
+                String createdDate = dateFormat.format(new Date(created));
 
                 // מיקום התוצאה
                 String locationResult = "";
@@ -96,7 +101,7 @@ public class SearchEngineModel {
                 }
 
                 SearchResult searchResult = new SearchResult(
-                        name, parentPath, size, modified, created, locationResult
+                        name, parentPath, size, modified, createdDate, locationResult
                 );
 
                 searchResults.add(searchResult);
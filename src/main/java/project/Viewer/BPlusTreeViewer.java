@@ -1,6 +1,8 @@
 package project.Viewer;
 
 import project.Common.Config;
+import project.Common.PostingsFormat;
+import project.Common.TreePageFormat;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -13,7 +15,6 @@ public class BPlusTreeViewer {
 
     // קבועים למבנה B+ Tree
     private static final int HEADER_SIZE = 32;
-    private static final int PAGE_SIZE = 8 * 1024;
 
     // סוגי עמודים
     private static final byte PAGE_TYPE_INTERNAL = 1;
@@ -39,7 +40,7 @@ public class BPlusTreeViewer {
             int y = 0;
             // שלב 2: הדפסת כל העמודים
             for (int i = 0; i < header.totalPages; i++) {
-                BPlusTreePage page = readBPlusTreePage(dis, i);
+                BPlusTreePage page = readBPlusTreePage(dis, i, header);
                 printBPlusTreePage(page, i);
                 if (page.pageType == PAGE_TYPE_INTERNAL) y++;
 
@@ -74,18 +75,22 @@ public class BPlusTreeViewer {
         int rootPageId = dis.readInt();
         int totalPages = dis.readInt();
         short treeHeight = dis.readShort();
+        short pageFormat = dis.readShort();
+        short restartInterval = dis.readShort();
 
         // דילוג על Reserved space + Padding עד 32 bytes
-        dis.skip(HEADER_SIZE - 4 - 2 - 4 - 4 - 4 - 2);
+        dis.skipBytes(HEADER_SIZE - 4 - 2 - 4 - 4 - 4 - 2 - 2 - 2);
 
-        return new BPlusTreeHeader(magic, version, pageSize, rootPageId, totalPages, treeHeight);
+        BPlusTreeHeader header = new BPlusTreeHeader(magic, version, pageSize, rootPageId, totalPages, treeHeight, pageFormat);
+        header.restartInterval = restartInterval;
+        return header;
     }
 
     /**
      * קריאת עמוד B+ Tree - עודכן למבנה החדש
      */
-    private static BPlusTreePage readBPlusTreePage(DataInputStream dis, int pageIndex) throws IOException {
-        byte[] pageData = new byte[PAGE_SIZE];
+    private static BPlusTreePage readBPlusTreePage(DataInputStream dis, int pageIndex, BPlusTreeHeader header) throws IOException {
+        byte[] pageData = new byte[header.pageSize];
         dis.readFully(pageData);
 
         ByteArrayInputStream bais = new ByteArrayInputStream(pageData);
@@ -102,6 +107,12 @@ public class BPlusTreeViewer {
             int nextPageId = pageStream.readInt();
             page.nextPageId = nextPageId;
 
+            if (header.pageFormat >= TreePageFormat.FRONT_CODED) {
+                readFrontCodedEntries(pageStream, header, page, numEntries);
+                return page;
+            }
+            skipSlots(pageStream, header, numEntries);
+
             for (int i = 0; i < numEntries; i++) {
                 try {
                     String term = pageStream.readUTF();
@@ -118,6 +129,7 @@ public class BPlusTreeViewer {
                 // המצביע הראשון
                 int firstPointer = pageStream.readInt();
                 page.setFirstPointer(firstPointer);
+                skipSlots(pageStream, header, numEntries);
 
                 // מפתחות + מצביעים
                 for (int i = 0; i < numEntries; i++) {
@@ -133,6 +145,50 @@ public class BPlusTreeViewer {
         return page;
     }
 
+    /**
+     * דילוג על מערך ה-slots בעמודי SLOTTED - הרשומות עצמן רציפות כמו ב-LEGACY
+     */
+    private static void skipSlots(DataInputStream pageStream, BPlusTreeHeader header, int numEntries) throws IOException {
+        if (header.pageFormat >= TreePageFormat.SLOTTED) {
+            pageStream.skipBytes(numEntries * TreePageFormat.SLOT_SIZE);
+        }
+    }
+
+    /**
+     * פענוח עלה FRONT_CODED: שחזור כל מפתח מהקידומת המשותפת עם הקודם + הסיומת
+     */
+    private static void readFrontCodedEntries(DataInputStream pageStream, BPlusTreeHeader header,
+                                              BPlusTreePage page, int numEntries) throws IOException {
+        int restarts = (numEntries + header.restartInterval - 1) / header.restartInterval;
+        pageStream.skipBytes(restarts * TreePageFormat.SLOT_SIZE);
+
+        byte[] key = new byte[0];
+        long postingsOffset = 0;
+        for (int i = 0; i < numEntries; i++) {
+            int shared = PostingsFormat.readVInt(pageStream);
+            int suffixLength = PostingsFormat.readVInt(pageStream);
+            byte[] next = new byte[shared + suffixLength];
+            System.arraycopy(key, 0, next, 0, shared);
+            pageStream.readFully(next, shared, suffixLength);
+            key = next;
+
+            int numDocs = PostingsFormat.readVInt(pageStream);
+            long offsetValue = PostingsFormat.readVLong(pageStream);
+            postingsOffset = i % header.restartInterval == 0 ? offsetValue : postingsOffset + offsetValue;
+
+            page.addLeafEntry(new LeafEntry(decodeKey(key), numDocs, postingsOffset));
+        }
+    }
+
+    // המפתח שמור בקידוד של writeUTF - פענוח דרך readUTF
+    private static String decodeKey(byte[] key) throws IOException {
+        byte[] withLength = new byte[key.length + 2];
+        withLength[0] = (byte) (key.length >>> 8);
+        withLength[1] = (byte) key.length;
+        System.arraycopy(key, 0, withLength, 2, key.length);
+        return new DataInputStream(new ByteArrayInputStream(withLength)).readUTF();
+    }
+
     /**
      * הדפסת Header של B+ Tree
      */
@@ -144,6 +200,10 @@ public class BPlusTreeViewer {
         System.out.println("  Root Page ID: " + header.rootPageId);
         System.out.println("  Total Pages: " + header.totalPages);
         System.out.println("  Tree Height: " + header.treeHeight);
+        System.out.println("  Page Format: " + header.pageFormat);
+        if (header.pageFormat >= TreePageFormat.FRONT_CODED) {
+            System.out.println("  Restart Interval: " + header.restartInterval);
+        }
     }
 
     /**
@@ -196,14 +256,17 @@ public class BPlusTreeViewer {
         int rootPageId; // עודכן מ-long ל-int
         int totalPages; // עודכן מ-long ל-int
         short treeHeight; // עודכן מ-int ל-short
+        short pageFormat;
+        short restartInterval;
 
-        BPlusTreeHeader(byte[] magic, short version, int pageSize, int rootPageId, int totalPages, short treeHeight) {
+        BPlusTreeHeader(byte[] magic, short version, int pageSize, int rootPageId, int totalPages, short treeHeight, short pageFormat) {
             this.magic = magic;
             this.version = version;
             this.pageSize = pageSize;
             this.rootPageId = rootPageId;
             this.totalPages = totalPages;
             this.treeHeight = treeHeight;
+            this.pageFormat = pageFormat;
         }
     }
 
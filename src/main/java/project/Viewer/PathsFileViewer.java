@@ -1,6 +1,8 @@
 package project.Viewer;
 
 import project.Common.Config;
+import project.Common.PathStoreFormat;
+import project.Common.PostingsFormat;
 
 import java.io.*;
 
@@ -9,7 +11,12 @@ public class PathsFileViewer {
 
     public static void printPathsFile(String filePath) {
         System.out.println("=== קובץ נתיבים: " + filePath + " ===");
-        
+
+        if (isDirectoryTree(filePath)) {
+            printDirectoryTreeFile(filePath);
+            return;
+        }
+
         try (DataInputStream dis = new DataInputStream(
                 new BufferedInputStream(new FileInputStream(filePath)))) {
             
@@ -57,9 +64,62 @@ public class PathsFileViewer {
             e.printStackTrace();
         }
     }
-    
 
-    
+    // פורמט DIRECTORY_TREE מתחיל ב-magic (קובץ FLAT מתחיל ישר באורך הנתיב הראשון)
+    private static boolean isDirectoryTree(String filePath) {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(filePath))) {
+            return new File(filePath).length() >= PathStoreFormat.HEADER_SIZE
+                    && dis.readInt() == PathStoreFormat.MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void printDirectoryTreeFile(String filePath) {
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            file.seek(PathStoreFormat.DOC_COUNT_OFFSET);
+            int documentCount = file.readInt();
+            long directoryTableOffset = file.readLong();
+
+            // טבלת התיקיות - נתיב מלא לכל תיקייה (תיקיית האב תמיד לפניה)
+            file.seek(directoryTableOffset);
+            DataInputStream table = new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD())));
+            int directoryCount = PostingsFormat.readVInt(table);
+            String[] directories = new String[directoryCount];
+            for (int i = 0; i < directoryCount; i++) {
+                int parent = PostingsFormat.readVInt(table) - 1;
+                String name = readName(table);
+                directories[i] = parent < 0 ? name : directories[parent] + name;
+            }
+
+            System.out.println("-".repeat(80));
+            System.out.println("פורמט: Path# (Directory) -> Path");
+
+            file.seek(PathStoreFormat.HEADER_SIZE);
+            DataInputStream records = new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD())));
+            for (int docId = 0; docId < documentCount; docId++) {
+                int directoryId = PostingsFormat.readVInt(records) - 1;
+                String name = readName(records);
+                String path = directoryId < 0 ? name : directories[directoryId] + name;
+                System.out.printf("Path #%04d (Directory: %6d) -> %s%n", docId, directoryId, path);
+            }
+
+            System.out.println("-".repeat(80));
+            System.out.println("סה\"כ נתיבים: " + documentCount);
+            System.out.println("סה\"כ תיקיות: " + directoryCount);
+            System.out.println("גודל קובץ: " + file.length() + " bytes");
+
+        } catch (IOException e) {
+            System.err.println("שגיאה בקריאת קובץ נתיבים: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static String readName(DataInputStream in) throws IOException {
+        byte[] nameBytes = new byte[PostingsFormat.readVInt(in)];
+        in.readFully(nameBytes);
+        return new String(nameBytes, "UTF-8");
+    }
 
     // =============== Main ===============
     
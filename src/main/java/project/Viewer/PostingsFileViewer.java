@@ -1,6 +1,8 @@
 package project.Viewer;
 
 import project.Common.Config;
+import project.Common.PostingsFormat;
+
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -168,6 +170,108 @@ public class PostingsFileViewer {
         }
     }
 
+    // הדפסת קובץ Postings בפורמט V2 - כל רשימה מתחילה ב-numDocs ולכן הגבולות ידועים
+    public static void printCompressedPostingsFile(String filePath, int maxLists) {
+        System.out.println("=== Postings File (V2): " + filePath + " ===");
+
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filePath)))) {
+
+            long fileSize = new File(filePath).length();
+            CountingInput in = new CountingInput(dis);
+            int postingListCount = 0;
+
+            System.out.println("פורמט: PostingList# (Start Offset, Length) -> [DocID: freq, positions...]");
+            System.out.println("-".repeat(100));
+
+            while (in.offset < fileSize && postingListCount < maxLists) {
+                long startOffset = in.offset;
+                int numDocs = in.readVInt();
+
+                List<PostingEntry> entries = new ArrayList<>();
+                int docId = 0;
+                for (int i = 0; i < numDocs; i++) {
+                    docId += in.readVInt();
+                    int termFreq = in.readVInt();
+
+                    List<Integer> positions = new ArrayList<>();
+                    int position = 0;
+                    for (int j = 0; j < termFreq; j++) {
+                        position += in.readVInt();
+                        positions.add(position);
+                    }
+                    entries.add(new PostingEntry(docId, termFreq, positions));
+                }
+
+                System.out.printf("PostingList #%04d (Offset: %8d, Length: %4d) -> ",
+                        postingListCount, startOffset, in.offset - startOffset);
+
+                boolean first = true;
+                for (PostingEntry entry : entries) {
+                    if (!first) System.out.print(", ");
+                    System.out.printf("[DocID:%d freq:%d pos:%s]",
+                            entry.docId, entry.termFreq, entry.positions);
+                    first = false;
+                }
+                System.out.println();
+
+                postingListCount++;
+            }
+
+            System.out.println("-".repeat(100));
+            System.out.println("סה\"כ Posting Lists: " + postingListCount);
+            System.out.println("גודל קובץ: " + fileSize + " bytes");
+
+        } catch (FileNotFoundException e) {
+            System.err.println("קובץ לא נמצא: " + filePath);
+        } catch (IOException e) {
+            System.err.println("שגיאה בקריאת Postings: " + e.getMessage());
+        }
+    }
+
+    // קריאת גרסת פורמט ה-Postings מה-Header של קובץ העץ (Magic 4 bytes + Version 2 bytes)
+    static short readPostingsVersion(String treeFilePath) {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(treeFilePath))) {
+            dis.skipBytes(4);
+            return dis.readShort();
+        } catch (IOException e) {
+            return PostingsFormat.V1;
+        }
+    }
+
+    private static void printPostings(String type, String filePath, int maxLists) {
+        short version = readPostingsVersion(Config.getInstance().getBPlusTreeFile(type));
+        if (version >= PostingsFormat.V2) {
+            printCompressedPostingsFile(filePath, maxLists);
+        } else if (maxLists == Integer.MAX_VALUE) {
+            printPostingsFile(filePath);
+        } else {
+            printPostingsSample(filePath, maxLists);
+        }
+    }
+
+    private static class CountingInput {
+        final DataInputStream dis;
+        long offset = 0;
+
+        CountingInput(DataInputStream dis) {
+            this.dis = dis;
+        }
+
+        int readVInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = dis.readUnsignedByte();
+                offset++;
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
     static class PostingEntry {
         int docId;
         int termFreq;
@@ -191,9 +295,9 @@ public class PostingsFileViewer {
         
         if (args.length > 0) {
             if (args[0].equals("--name")) {
-                printPostingsFile(config.getPostingsFile("name"));
+                printPostings("name", config.getPostingsFile("name"), Integer.MAX_VALUE);
             } else if (args[0].equals("--content")) {
-                printPostingsFile(config.getPostingsFile("content"));
+                printPostings("content", config.getPostingsFile("content"), Integer.MAX_VALUE);
             } else if (args[0].equals("--sample") && args.length > 2) {
                 String type = args[1];
                 try {
@@ -202,7 +306,7 @@ public class PostingsFileViewer {
                             config.getPostingsFile("name") :
                             type.equals("content") ?
                                     config.getPostingsFile("content") : type;
-                    printPostingsSample(filePath, maxLists);
+                    printPostings(type, filePath, maxLists);
                 } catch (NumberFormatException e) {
                     System.err.println("מספר הרשימות חייב להיות מספר: " + args[2]);
                 }